@@ -15,21 +15,42 @@ import io.quagmire.core.menu.MenuPluginInterface;
 import io.quagmire.core.messages.MessagesManager;
 import io.quagmire.itemmarketplace.commands.admin.core.AdminHelpCommand;
 import io.quagmire.itemmarketplace.commands.admin.core.AdminUnknownCommand;
+import io.quagmire.itemmarketplace.commands.admin.menus.AdminMenusCommand;
+import io.quagmire.itemmarketplace.commands.admin.reencode.AdminReencodeCommand;
 import io.quagmire.itemmarketplace.commands.admin.reload.AdminReloadCommand;
+import io.quagmire.itemmarketplace.commands.admin.stats.AdminStatsCommand;
 import io.quagmire.itemmarketplace.commands.player.core.PlayerHelpCommand;
 import io.quagmire.itemmarketplace.commands.player.core.PlayerUnknownCommand;
+import io.quagmire.itemmarketplace.commands.player.history.PlayerHistoryCommand;
 import io.quagmire.itemmarketplace.commands.player.listings.PlayerListingsCommand;
+import io.quagmire.itemmarketplace.commands.player.mylistings.PlayerMyListingsCommand;
+import io.quagmire.itemmarketplace.commands.player.price.PlayerPriceCommand;
+import io.quagmire.itemmarketplace.commands.player.search.PlayerSearchCommand;
+import io.quagmire.itemmarketplace.databases.BackfillJob;
 import io.quagmire.itemmarketplace.databases.DatabaseCollection;
+import io.quagmire.itemmarketplace.databases.ItemBlobMigrationJob;
+import io.quagmire.itemmarketplace.databases.ItemMetadataBackfillJob;
+import io.quagmire.itemmarketplace.databases.ItemReencodeJob;
+import io.quagmire.itemmarketplace.databases.PersistenceWorker;
+import io.quagmire.itemmarketplace.databases.RollupAggregator;
+import io.quagmire.itemmarketplace.databases.UuidBackfillJob;
 import io.quagmire.itemmarketplace.manager.ListingManager;
+import io.quagmire.itemmarketplace.manager.SellerNameCache;
+import io.quagmire.itemmarketplace.menu.HistoryMenu;
+import io.quagmire.itemmarketplace.menu.ListingItemRenderer;
 import io.quagmire.itemmarketplace.menu.ListingsMenu;
+import io.quagmire.itemmarketplace.menu.MyListingsMenu;
 import io.quagmire.itemmarketplace.messages.Message;
 import lombok.Getter;
 import org.bukkit.event.HandlerList;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
 public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInterface {
   @Getter private final ChatToolkit chatToolkit;
@@ -45,8 +66,15 @@ public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInter
 
   private DatabaseConnectionPool databaseConnectionPool;
   @Getter private DatabaseCollection databaseCollection;
+  @Getter private PersistenceWorker persistenceWorker;
+  private final List<BackfillJob> backfillJobs = new ArrayList<>();
+  @Getter private ItemReencodeJob itemReencodeJob;
+  private RollupAggregator rollupAggregator;
   
   @Getter private ListingManager listingManager;
+  @Getter private ListingItemRenderer listingItemRenderer;
+  @Getter private SellerNameCache sellerNameCache;
+  @Getter private ListingsMenu listingsMenu;
 
   public ItemMarketplacePlugin() {
     chatToolkit = new ChatToolkit(this);
@@ -82,36 +110,101 @@ public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInter
     setupConfigurations();
 
     messagesManager.initialize(Message.getInitializers());
+    listingItemRenderer = new ListingItemRenderer(this);
+    sellerNameCache = new SellerNameCache(this, this::onSellerNamesResolved);
+    getServer().getPluginManager().registerEvents(sellerNameCache, this);
 
     setupCommands();
     setupAdminCommands();
     setupMenus();
     
+    persistenceWorker = new PersistenceWorker(this);
+    persistenceWorker.start();
+    rollupAggregator = new RollupAggregator(this);
+    startBackfillJobs();
+    itemReencodeJob = new ItemReencodeJob(this);
+    
     // Initialize the listing manager
     initializeListingManager();
   }
   
   /**
-   * Initialize the listing manager and load active listings
+   * Initialize the listing manager and load active listings in the background
    */
   private void initializeListingManager() {
     listingManager = new ListingManager(this);
-    try {
-      listingManager.initialize();
-      getLogger().info("Loaded " + listingManager.getAllListings().size() + " active listings from database");
+    
+    // Open listings menus follow listing changes, rendered at most once per tick per viewer
+    listingManager.addChangeListener(listingsMenu);
+    scheduler.runTimerAsync(task -> listingsMenu.flushLiveUpdates(), 1L, 1L);
+    
+    // Retire listings close to their expiry second, whether or not the load succeeds
+    long expiryCheckTicks = Math.max(1L, getConfig().getLong("listings.expiry-check-interval-ticks", 20L));
+    scheduler.runTimerAsync(task -> {
+      try {
+        listingManager.cleanExpiredListings();
+      } catch (SQLException e) {
+        getLogger().severe("Failed to clean expired listings: " + e.getMessage());
+      }
+    }, expiryCheckTicks, expiryCheckTicks);
+    
+    // Pick up sales from other servers that were not announced on the bus
+    long statsSyncTicks = Math.max(1L, getConfig().getLong("stats.sync-interval-ticks", 100L));
+    scheduler.runTimerAsync(task -> {
+      try {
+        listingManager.getPriceStats().catchUp();
+      } catch (SQLException e) {
+        getLogger().warning("Failed to read new sales for price statistics: " + e.getMessage());
+      }
+    }, statsSyncTicks, statsSyncTicks);
+    
+    long loadStart = System.currentTimeMillis();
+    listingManager.initialize().whenComplete((count, error) -> {
+      if (error != null) {
+        getLogger().severe("Failed to initialize listing manager, the marketplace is unavailable until the next restart: " + error.getMessage());
+        return;
+      }
+      getLogger().info("Loaded " + count + " active listings from database in " + (System.currentTimeMillis() - loadStart) + "ms");
+      sellerNameCache.warm(listingManager.getSellerUuids());
       
-      // Schedule task to clean expired listings every 10 minutes
-      getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
-        try {
-          listingManager.cleanExpiredListings();
-        } catch (SQLException e) {
-          getLogger().severe("Failed to clean expired listings: " + e.getMessage());
+      long seedStart = System.currentTimeMillis();
+      listingManager.getPriceStats().seed().whenComplete((sales, seedError) -> {
+        if (seedError != null) {
+          getLogger().severe("Failed to seed price statistics: " + seedError.getMessage());
+          return;
         }
-      }, 0L, 12000L); // Run every 10 minutes (12000 ticks)
-      
-    } catch (SQLException e) {
-      getLogger().severe("Failed to initialize listing manager: " + e.getMessage());
+        getLogger().info("Seeded price statistics with " + sales + " sales in " + (System.currentTimeMillis() - seedStart) + "ms");
+      });
+    });
+  }
+
+  /**
+   * Resume the online rewrites of rows stored in an older format
+   */
+  private void startBackfillJobs() {
+    for (BackfillJob.Table table : BackfillJob.Table.values()) {
+      backfillJobs.add(new UuidBackfillJob(this, table));
+      backfillJobs.add(new ItemBlobMigrationJob(this, table));
     }
+    backfillJobs.forEach(BackfillJob::start);
+
+    // Purchases copy item metadata from the listing row, so listings are filled in first,
+    // and the rollups group by material, so they wait for the transactions
+    BackfillJob transactionMetadata = new ItemMetadataBackfillJob(this, BackfillJob.Table.TRANSACTIONS, rollupAggregator::start);
+    BackfillJob listingMetadata = new ItemMetadataBackfillJob(this, BackfillJob.Table.LISTINGS, transactionMetadata::start);
+    backfillJobs.add(transactionMetadata);
+    backfillJobs.add(listingMetadata);
+    listingMetadata.start();
+  }
+
+  /**
+   * Patch freshly resolved seller names into the listings menus that show them
+   */
+  private void onSellerNamesResolved(Set<UUID> sellerUuids) {
+    if (listingManager == null) return;
+
+    // Cached items compare the seller name they were rendered with, so only open pages need a refresh
+    listingsMenu.refreshSellers(sellerUuids);
   }
 
   public void setupMenus() {
@@ -132,7 +225,10 @@ public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInter
 //
     
     // Register the listings menu
-    menuManager.register("listings", new ListingsMenu(this, "listings"));
+    listingsMenu = new ListingsMenu(this, "listings");
+    menuManager.register("listings", listingsMenu);
+    menuManager.register("mylistings", new MyListingsMenu(this, "mylistings"));
+    menuManager.register("history", new HistoryMenu(this, "history"));
     
     menuManager.reload();
     getServer().getPluginManager().registerEvents(menuManager, this);
@@ -151,6 +247,10 @@ public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInter
     commandRegistry.register(PlayerHelpCommand.class);
     commandRegistry.register(PlayerUnknownCommand.class);
     commandRegistry.register(PlayerListingsCommand.class);
+    commandRegistry.register(PlayerMyListingsCommand.class);
+    commandRegistry.register(PlayerSearchCommand.class);
+    commandRegistry.register(PlayerHistoryCommand.class);
+    commandRegistry.register(PlayerPriceCommand.class);
 
     commandRegistry.setDefaultCommand("help");
     commandRegistry.setFallbackCommand("unknown");
@@ -168,6 +268,9 @@ public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInter
     adminCommandRegistry.register(AdminHelpCommand.class);
     adminCommandRegistry.register(AdminUnknownCommand.class);
     adminCommandRegistry.register(AdminReloadCommand.class);
+    adminCommandRegistry.register(AdminReencodeCommand.class);
+    adminCommandRegistry.register(AdminStatsCommand.class);
+    adminCommandRegistry.register(AdminMenusCommand.class);
 
     adminCommandRegistry.setDefaultCommand("help");
     adminCommandRegistry.setFallbackCommand("unknown");
@@ -183,6 +286,22 @@ public class ItemMarketplacePlugin extends CorePlugin implements MenuPluginInter
     HandlerList.unregisterAll(this);
     scheduler.cancelAllTasks();
 
+    if (listingManager != null) {
+      listingManager.shutdown();
+    }
+    backfillJobs.forEach(BackfillJob::stop);
+    if (itemReencodeJob != null) {
+      itemReencodeJob.stop();
+    }
+    if (rollupAggregator != null) {
+      rollupAggregator.stop();
+    }
+
+    // Flush queued marketplace writes while the pool is still open
+    if (persistenceWorker != null) {
+      persistenceWorker.shutdown(getConfig().getLong("persistence.shutdown-timeout-millis", 30000L));
+    }
+
     if (databaseConnectionPool != null) {
       databaseConnectionPool.close();
     }
@@ -0,0 +1,50 @@
+package io.quagmire.itemmarketplace.commands.admin.menus;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.commands.admin.AdminCommand;
+import io.quagmire.itemmarketplace.menu.MenuRefreshScheduler;
+import io.quagmire.itemmarketplace.messages.Message;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class AdminMenusCommand extends AdminCommand {
+  public AdminMenusCommand(ItemMarketplacePlugin plugin, Command command, String[] args, CommandSender sender) {
+    super(plugin, command, args, sender);
+    setDescription("Shows how many listings menu renders were run and coalesced.");
+    setPermission(getPermissionPrefix() + ".menus");
+    setSyntax("");
+  }
+
+  @Override
+  public boolean validate() {
+    if (!sender.hasPermission(permission)) {
+      messageSender(Message.NO_PERMISSIONS);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void execute() {
+    MenuRefreshScheduler.Metrics metrics = plugin.getListingsMenu().getRefreshScheduler().getMetrics();
+
+    messageSender(Message.MENU_REFRESH_METRICS, Map.of(
+        "requested", String.valueOf(metrics.requested()),
+        "executed", String.valueOf(metrics.executed()),
+        "coalesced", String.valueOf(metrics.coalesced())));
+  }
+
+  @Override
+  public List<String> tab() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String subcommand() {
+    return "menus";
+  }
+}
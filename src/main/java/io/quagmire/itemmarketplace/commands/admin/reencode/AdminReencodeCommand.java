@@ -0,0 +1,60 @@
+package io.quagmire.itemmarketplace.commands.admin.reencode;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.commands.admin.AdminCommand;
+import io.quagmire.itemmarketplace.messages.Message;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+
+public class AdminReencodeCommand extends AdminCommand {
+  public AdminReencodeCommand(ItemMarketplacePlugin plugin, Command command, String[] args, CommandSender sender) {
+    super(plugin, command, args, sender);
+    setDescription("Rewrites stored items in the current compressed format.");
+    setPermission(getPermissionPrefix() + ".reencode");
+    setSyntax("");
+  }
+
+  @Override
+  public boolean validate() {
+    if (!sender.hasPermission(permission)) {
+      messageSender(Message.NO_PERMISSIONS);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void execute() {
+    boolean started = plugin.getItemReencodeJob().start(result -> {
+      String message = plugin.getMessagesManager().get(Message.REENCODE_FINISHED.name().toLowerCase())
+          .replace("%count%", String.valueOf(result.reencoded()))
+          .replace("%total%", String.valueOf(result.blobs()))
+          .replace("%bytes_before%", String.valueOf(result.bytesBefore()))
+          .replace("%bytes_after%", String.valueOf(result.bytesAfter()));
+
+      if (sender instanceof Player player) {
+        plugin.getScheduler().runAtEntity(player, (task) -> {
+          if (player.isOnline()) player.sendMessage(message);
+        });
+      } else {
+        sender.sendMessage(message);
+      }
+    });
+
+    messageSender(started ? Message.REENCODE_STARTED : Message.REENCODE_RUNNING);
+  }
+
+  @Override
+  public List<String> tab() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String subcommand() {
+    return "reencode";
+  }
+}
@@ -37,6 +37,8 @@ public class AdminReloadCommand extends AdminCommand {
         return;
       }
 
+      plugin.getSellerNameCache().reload();
+      plugin.getListingItemRenderer().reload();
       plugin.getMenuManager().reload();
 
       messageSender(Message.RELOAD_SUCCESS);
@@ -0,0 +1,146 @@
+package io.quagmire.itemmarketplace.commands.admin.stats;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.commands.admin.AdminCommand;
+import io.quagmire.itemmarketplace.databases.implementations.RollupsDatabase;
+import io.quagmire.itemmarketplace.menu.ListingItemRenderer;
+import io.quagmire.itemmarketplace.messages.Message;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class AdminStatsCommand extends AdminCommand {
+  private static final int DEFAULT_DAYS = 7;
+  private static final int MAX_DAYS = 365;
+  private static final int MAX_DAILY_LINES = 14;
+  private static final int TOP_LIMIT = 5;
+
+  private int days = DEFAULT_DAYS;
+
+  public AdminStatsCommand(ItemMarketplacePlugin plugin, Command command, String[] args, CommandSender sender) {
+    super(plugin, command, args, sender);
+    setDescription("Shows marketplace sales from the daily rollups.");
+    setPermission(getPermissionPrefix() + ".stats");
+    setSyntax("[days]");
+  }
+
+  @Override
+  public boolean validate() {
+    if (!sender.hasPermission(permission)) {
+      messageSender(Message.NO_PERMISSIONS);
+      return false;
+    }
+
+    if (args.length >= 2) {
+      try {
+        days = Integer.parseInt(args[1]);
+      } catch (NumberFormatException e) {
+        messageSender(Message.INVALID_NUMBER);
+        return false;
+      }
+      if (days < 1 || days > MAX_DAYS) {
+        messageSender(Message.INVALID_NUMBER);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void execute() {
+    LocalDate to = LocalDate.now(ZoneOffset.UTC);
+    LocalDate from = to.minusDays(days - 1);
+    RollupsDatabase rollups = plugin.getDatabaseCollection().getRollupsDatabase();
+
+    // Every figure comes from the rollups, so the cost does not grow with history
+    plugin.getListingManager().queryAsync(() -> {
+      List<String> lines = new ArrayList<>();
+      List<RollupsDatabase.RollupTotal> dailyTotals = rollups.getDailyTotals(from, to);
+
+      lines.add(format(Message.STATS_HEADER, Map.of("days", String.valueOf(days))));
+      if (dailyTotals.isEmpty()) {
+        lines.add(format(Message.STATS_EMPTY, Map.of()));
+        return lines;
+      }
+
+      long sales = 0;
+      long items = 0;
+      BigDecimal revenue = BigDecimal.ZERO;
+      for (RollupsDatabase.RollupTotal total : dailyTotals) {
+        sales += total.sales();
+        items += total.items();
+        revenue = revenue.add(total.revenue());
+        if (dailyTotals.size() <= MAX_DAILY_LINES) {
+          lines.add(format(Message.STATS_DAY, renders(total.key(), total)));
+        }
+      }
+      lines.add(format(Message.STATS_TOTAL, renders("", new RollupsDatabase.RollupTotal("", sales, items, revenue))));
+
+      lines.add(format(Message.STATS_TOP_MATERIALS, Map.of()));
+      int rank = 1;
+      for (RollupsDatabase.RollupTotal total : rollups.getTopMaterials(from, to, TOP_LIMIT)) {
+        Map<String, String> renders = renders(total.key().toLowerCase().replace('_', ' '), total);
+        renders.put("rank", String.valueOf(rank++));
+        lines.add(format(Message.STATS_ENTRY, renders));
+      }
+
+      lines.add(format(Message.STATS_TOP_SELLERS, Map.of()));
+      rank = 1;
+      for (RollupsDatabase.RollupTotal total : rollups.getTopSellers(from, to, TOP_LIMIT)) {
+        String name = plugin.getServer().getOfflinePlayer(UUID.fromString(total.key())).getName();
+        Map<String, String> renders = renders(name != null ? name : total.key(), total);
+        renders.put("rank", String.valueOf(rank++));
+        lines.add(format(Message.STATS_ENTRY, renders));
+      }
+      return lines;
+    }).whenComplete((lines, error) -> {
+      if (error != null) {
+        plugin.getLogger().severe("Failed to read marketplace stats: " + error.getMessage());
+      }
+
+      List<String> output = error == null ? lines : List.of(format(Message.ERROR_GENERIC, Map.of()));
+      if (sender instanceof Player player) {
+        plugin.getScheduler().runAtEntity(player, (task) -> output.forEach(player::sendMessage));
+      } else {
+        output.forEach(sender::sendMessage);
+      }
+    });
+  }
+
+  private Map<String, String> renders(String name, RollupsDatabase.RollupTotal total) {
+    ListingItemRenderer renderer = plugin.getListingItemRenderer();
+    Map<String, String> renders = new HashMap<>();
+    renders.put("name", name);
+    renders.put("day", name);
+    renders.put("sales", String.valueOf(total.sales()));
+    renders.put("items", String.valueOf(total.items()));
+    renders.put("revenue", renderer.formatPrice(total.revenue()));
+    return renders;
+  }
+
+  private String format(Message message, Map<String, String> renders) {
+    Map<String, String> placeholders = new HashMap<>(renders);
+    placeholders.put("prefix", plugin.getMessagesManager().get(Message.PREFIX.name().toLowerCase()));
+    return plugin.getListingItemRenderer().replacePlaceholders(
+      plugin.getMessagesManager().get(message.name().toLowerCase()), placeholders);
+  }
+
+  @Override
+  public List<String> tab() {
+    return args.length == 2 ? List.of("1", "7", "30") : List.of();
+  }
+
+  @Override
+  public String subcommand() {
+    return "stats";
+  }
+}
@@ -38,6 +38,7 @@ public class PlayerListingsCommand extends PlayerCommand {
     try {
       Player player = (Player) sender;
       plugin.getScheduler().runAtEntity(player, (task) -> {
+        plugin.getListingsMenu().setSearchTerm(player, null);
         plugin.getMenuManager().openMenu(player, player, "listings");
       });
     }
@@ -0,0 +1,125 @@
+package io.quagmire.itemmarketplace.commands.player.price;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.commands.player.PlayerCommand;
+import io.quagmire.itemmarketplace.manager.stats.ItemSignature;
+import io.quagmire.itemmarketplace.manager.stats.PriceStats;
+import io.quagmire.itemmarketplace.manager.stats.PriceStatsEngine;
+import io.quagmire.itemmarketplace.manager.stats.PriceWindow;
+import io.quagmire.itemmarketplace.menu.ListingItemRenderer;
+import io.quagmire.itemmarketplace.messages.Message;
+import org.bukkit.Material;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class PlayerPriceCommand extends PlayerCommand {
+  public PlayerPriceCommand(ItemMarketplacePlugin plugin, Command command, String[] args, CommandSender sender) {
+    super(plugin, command, args, sender);
+    setDescription("Show the market prices of the item in your hand.");
+    setPermission(getPermissionPrefix() + ".price");
+    setSyntax("");
+  }
+
+  @Override
+  public boolean validate() {
+    if (!(sender instanceof Player)) {
+      messageSender(Message.PLAYER_ONLY);
+      return false;
+    }
+    
+    if (!sender.hasPermission(permission)) {
+      messageSender(Message.NO_PERMISSIONS);
+      return false;
+    }
+    
+    return true;
+  }
+
+  @Override
+  public void execute() {
+    try {
+      Player player = (Player) sender;
+      ItemStack item = player.getInventory().getItemInMainHand();
+      if (item.getType() == Material.AIR) {
+        messageSender(Message.PRICE_NO_ITEM);
+        return;
+      }
+
+      // Everything below is read from memory
+      PriceStatsEngine priceStats = plugin.getListingManager().getPriceStats();
+      ListingItemRenderer renderer = plugin.getListingItemRenderer();
+      String signature = ItemSignature.of(item);
+
+      messageSender(Message.PRICE_HEADER, Map.of("item", item.getType().name().toLowerCase().replace('_', ' ')));
+      for (PriceWindow window : PriceWindow.values()) {
+        PriceStats stats = priceStats.getStats(signature, window);
+        if (stats == null) {
+          messageSender(Message.PRICE_WINDOW_EMPTY, Map.of("window", window.getLabel()));
+          continue;
+        }
+
+        Map<String, String> renders = new HashMap<>();
+        renders.put("window", window.getLabel());
+        renders.put("sales", String.valueOf(stats.sales()));
+        renders.put("volume", String.valueOf(stats.volume()));
+        renders.put("min", renderer.formatPrice(stats.min()));
+        renders.put("p25", renderer.formatPrice(stats.p25()));
+        renders.put("median", renderer.formatPrice(stats.median()));
+        renders.put("p75", renderer.formatPrice(stats.p75()));
+        renders.put("p90", renderer.formatPrice(stats.p90()));
+        renders.put("average", renderer.formatPrice(stats.weightedAverage()));
+        messageSender(Message.PRICE_WINDOW, renders);
+
+        // Busy items hit the sample bound before the window's start
+        if (stats.truncated()) {
+          messageSender(Message.PRICE_WINDOW_TRUNCATED, Map.of(
+            "window", window.getLabel(),
+            "span", formatSpan(System.currentTimeMillis() - stats.coveredSinceMillis())));
+        }
+      }
+
+      Double lowestAsk = priceStats.getLowestAsk(signature);
+      if (lowestAsk == null) {
+        messageSender(Message.PRICE_NOT_LISTED);
+      } else {
+        messageSender(Message.PRICE_LISTED, Map.of(
+          "lowest", renderer.formatPrice(lowestAsk),
+          "listings", String.valueOf(priceStats.getAskCount(signature))));
+      }
+
+      if (!priceStats.isSeeded()) {
+        messageSender(Message.PRICE_SEEDING);
+      }
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+      messageSender(Message.ERROR_GENERIC);
+    }
+  }
+
+  private static String formatSpan(long millis) {
+    long hours = TimeUnit.MILLISECONDS.toHours(millis);
+    if (hours < 48) {
+      return Math.max(1, hours) + " hours";
+    }
+    return TimeUnit.MILLISECONDS.toDays(millis) + " days";
+  }
+
+  @Override
+  public List<String> tab() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String subcommand() {
+    return "price";
+  }
+}
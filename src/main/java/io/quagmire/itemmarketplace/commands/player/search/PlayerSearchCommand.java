@@ -0,0 +1,76 @@
+package io.quagmire.itemmarketplace.commands.player.search;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.commands.player.PlayerCommand;
+import io.quagmire.itemmarketplace.messages.Message;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PlayerSearchCommand extends PlayerCommand {
+  private static final int MAX_COMPLETIONS = 20;
+
+  public PlayerSearchCommand(ItemMarketplacePlugin plugin, Command command, String[] args, CommandSender sender) {
+    super(plugin, command, args, sender);
+    setDescription("Search the marketplace listings.");
+    setPermission(getPermissionPrefix() + ".search");
+    setSyntax("<term>");
+  }
+
+  @Override
+  public boolean validate() {
+    if (!(sender instanceof Player)) {
+      messageSender(Message.PLAYER_ONLY);
+      return false;
+    }
+
+    if (!sender.hasPermission(permission)) {
+      messageSender(Message.NO_PERMISSIONS);
+      return false;
+    }
+
+    // The search index only exists when listings are held in memory
+    if (plugin.getListingManager().isDatabaseBrowse()) {
+      messageSender(Message.SEARCH_UNAVAILABLE);
+      return false;
+    }
+
+    if (args.length < 2) {
+      messageSender(Message.SEARCH_TERM_REQUIRED);
+      return false;
+    }
+
+    return true;
+  }
+
+  @Override
+  public void execute() {
+    try {
+      Player player = (Player) sender;
+      String searchTerm = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+      plugin.getScheduler().runAtEntity(player, (task) -> {
+        plugin.getListingsMenu().setSearchTerm(player, searchTerm);
+        plugin.getMenuManager().openMenu(player, player, "listings");
+      });
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+      messageSender(Message.ERROR_GENERIC);
+    }
+  }
+
+  @Override
+  public List<String> tab() {
+    if (args.length < 2) return Collections.emptyList();
+    return plugin.getListingManager().completeSearchTerm(args[args.length - 1], MAX_COMPLETIONS);
+  }
+
+  @Override
+  public String subcommand() {
+    return "search";
+  }
+}
@@ -0,0 +1,118 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.BackgroundJobsDatabase;
+
+import java.sql.SQLException;
+
+/**
+ * Rewrites existing rows in the background while the server keeps running.
+ * The id space is walked in small ranges, each updated in its own short
+ * statement with a pause in between so row locks are never held for long.
+ * Progress is saved after every range so a restart resumes where it stopped.
+ */
+public abstract class BackfillJob {
+  protected final ItemMarketplacePlugin plugin;
+  protected final Table table;
+  private final String name;
+  private final int batchSize;
+  private final long pauseMillis;
+
+  private volatile boolean stopped;
+  private Thread thread;
+
+  public enum Table {
+    LISTINGS,
+    TRANSACTIONS
+  }
+
+  protected BackfillJob(ItemMarketplacePlugin plugin, Table table, String name) {
+    this.plugin = plugin;
+    this.table = table;
+    this.name = name + "-" + table.name().toLowerCase();
+    this.batchSize = Math.max(1, plugin.getConfig().getInt("jobs.batch-size", 1000));
+    this.pauseMillis = Math.max(0L, plugin.getConfig().getLong("jobs.pause-millis", 50L));
+  }
+
+  /**
+   * Get the highest id that may need rewriting. Rows written after the job
+   * starts are expected to be written in their new form already.
+   */
+  protected long getMaxId() throws SQLException {
+    DatabaseCollection databases = plugin.getDatabaseCollection();
+    return table == Table.LISTINGS ?
+        databases.getListingsDatabase().getMaxListingId() :
+        databases.getTransactionHistoryDatabase().getMaxTransactionId();
+  }
+
+  /**
+   * Rewrite the rows with ids in (afterId, toId]
+   *
+   * @return The number of rows changed
+   */
+  protected abstract int runBatch(long afterId, long toId) throws SQLException;
+
+  /**
+   * Called once every row has been rewritten, including on later starts
+   */
+  protected void onComplete() {
+  }
+
+  public void start() {
+    thread = new Thread(this::run, "ItemMarketplace-" + name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stop after the range in progress, leaving the saved progress to resume from
+   */
+  public void stop() {
+    stopped = true;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void run() {
+    BackgroundJobsDatabase jobs = plugin.getDatabaseCollection().getBackgroundJobsDatabase();
+
+    try {
+      BackgroundJobsDatabase.JobProgress progress = jobs.getProgress(name);
+      if (progress.completed()) {
+        onComplete();
+        return;
+      }
+
+      long maxId = getMaxId();
+      long cursor = progress.lastId();
+      long changed = 0;
+      if (cursor < maxId) {
+        plugin.getLogger().info("Running background job " + name + " from id " + cursor + " to " + maxId);
+      }
+
+      while (cursor < maxId) {
+        if (stopped) return;
+
+        long toId = Math.min(cursor + batchSize, maxId);
+        changed += runBatch(cursor, toId);
+        cursor = toId;
+        jobs.saveProgress(name, new BackgroundJobsDatabase.JobProgress(cursor, false));
+
+        if (pauseMillis > 0) {
+          Thread.sleep(pauseMillis);
+        }
+      }
+
+      jobs.saveProgress(name, new BackgroundJobsDatabase.JobProgress(cursor, true));
+      plugin.getLogger().info("Background job " + name + " finished, " + changed + " rows updated");
+      onComplete();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (SQLException e) {
+      if (!stopped) {
+        plugin.getLogger().severe("Background job " + name + " failed, it will resume on the next start: " + e.getMessage());
+      }
+    }
+  }
+}
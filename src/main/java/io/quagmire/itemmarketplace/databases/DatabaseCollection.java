@@ -2,16 +2,28 @@ package io.quagmire.itemmarketplace.databases;
 
 import io.quagmire.core.databases.DatabaseConnectionPool;
 import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.BackgroundJobsDatabase;
+import io.quagmire.itemmarketplace.databases.implementations.ItemBlobsDatabase;
+import io.quagmire.itemmarketplace.databases.implementations.ListingEventsDatabase;
 import io.quagmire.itemmarketplace.databases.implementations.ListingsDatabase;
+import io.quagmire.itemmarketplace.databases.implementations.RollupsDatabase;
 import io.quagmire.itemmarketplace.databases.implementations.TransactionHistoryDatabase;
 import lombok.Getter;
 
 public class DatabaseCollection {
   @Getter private final ListingsDatabase listingsDatabase;
   @Getter private final TransactionHistoryDatabase transactionHistoryDatabase;
+  @Getter private final BackgroundJobsDatabase backgroundJobsDatabase;
+  @Getter private final ItemBlobsDatabase itemBlobsDatabase;
+  @Getter private final RollupsDatabase rollupsDatabase;
+  @Getter private final ListingEventsDatabase listingEventsDatabase;
 
   public DatabaseCollection(ItemMarketplacePlugin plugin, DatabaseConnectionPool databaseConnectionPool) {
     this.listingsDatabase = new ListingsDatabase(plugin, databaseConnectionPool);
     this.transactionHistoryDatabase = new TransactionHistoryDatabase(plugin, databaseConnectionPool);
+    this.backgroundJobsDatabase = new BackgroundJobsDatabase(plugin, databaseConnectionPool);
+    this.itemBlobsDatabase = new ItemBlobsDatabase(plugin, databaseConnectionPool);
+    this.rollupsDatabase = new RollupsDatabase(plugin, databaseConnectionPool);
+    this.listingEventsDatabase = new ListingEventsDatabase(plugin, databaseConnectionPool);
   }
 }
@@ -0,0 +1,41 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.core.databases.DatabaseConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Drops indexes that code rather than a migration decides are no longer needed
+ */
+public final class DatabaseIndexes {
+  private DatabaseIndexes() {
+  }
+
+  /**
+   * Drop an index of a table in the current schema if it is still there
+   *
+   * @return Whether the index was dropped by this call
+   */
+  public static boolean dropIfExists(DatabaseConnectionPool pool, String table, String index) throws SQLException {
+    try (Connection connection = pool.getConnection()) {
+      try (PreparedStatement stmt = connection.prepareStatement(
+          "SELECT 1 FROM information_schema.statistics " +
+          "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? LIMIT 1")) {
+        stmt.setString(1, table);
+        stmt.setString(2, index);
+        try (ResultSet rs = stmt.executeQuery()) {
+          if (!rs.next()) return false;
+        }
+      }
+
+      try (Statement stmt = connection.createStatement()) {
+        stmt.executeUpdate("DROP INDEX " + index + " ON " + table);
+      }
+      return true;
+    }
+  }
+}
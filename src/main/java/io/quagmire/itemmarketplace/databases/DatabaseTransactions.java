@@ -0,0 +1,37 @@
+package io.quagmire.itemmarketplace.databases;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs work on a pooled connection inside a single database transaction
+ */
+public final class DatabaseTransactions {
+  private DatabaseTransactions() {
+  }
+
+  @FunctionalInterface
+  public interface TransactionWork<T> {
+    T run(Connection connection) throws SQLException;
+  }
+
+  /**
+   * Run the work with auto-commit disabled, committing on success and rolling
+   * back on failure. The connection's auto-commit mode is restored afterwards.
+   */
+  public static <T> T inTransaction(Connection connection, TransactionWork<T> work) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+
+    try {
+      T result = work.run(connection);
+      connection.commit();
+      return result;
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+}
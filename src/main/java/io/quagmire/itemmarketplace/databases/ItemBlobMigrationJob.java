@@ -0,0 +1,23 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+
+import java.sql.SQLException;
+
+/**
+ * Moves inline item payloads written before the blob table existed into it,
+ * so identical items end up stored once
+ */
+public class ItemBlobMigrationJob extends BackfillJob {
+  public ItemBlobMigrationJob(ItemMarketplacePlugin plugin, Table table) {
+    super(plugin, table, "item-blobs");
+  }
+
+  @Override
+  protected int runBatch(long afterId, long toId) throws SQLException {
+    DatabaseCollection databases = plugin.getDatabaseCollection();
+    return table == Table.LISTINGS ?
+        databases.getListingsDatabase().migrateItemBlobs(afterId, toId) :
+        databases.getTransactionHistoryDatabase().migrateItemBlobs(afterId, toId);
+  }
+}
@@ -0,0 +1,62 @@
+package io.quagmire.itemmarketplace.databases;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Content-addressed storage of serialized items. Each distinct payload is
+ * written once to marketplace_item_blobs and rows reference it by hash. The
+ * hash is taken over the raw serializer output rather than the stored form,
+ * so re-encoding a blob with {@link ItemCodec} never changes its key.
+ */
+public final class ItemBlobs {
+  /**
+   * Column alias the blob payload is selected under, see {@link #read(ResultSet)}
+   */
+  public static final String DATA_ALIAS = "blob_data";
+
+  private ItemBlobs() {
+  }
+
+  /**
+   * Select every column of a table together with its item blob
+   */
+  public static String selectWithBlob(String table) {
+    return "SELECT " + table + ".*, item_blob.item_data AS " + DATA_ALIAS + " FROM " + table +
+        " LEFT JOIN marketplace_item_blobs item_blob ON item_blob.item_hash = " + table + ".item_hash ";
+  }
+
+  public static byte[] hash(byte[] itemData) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(itemData);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Store an encoded payload under the hash of its raw form, unless an
+   * identical item is already stored
+   */
+  public static void store(Connection connection, byte[] itemHash, byte[] itemData) throws SQLException {
+    try (PreparedStatement stmt = connection.prepareStatement(
+        "INSERT IGNORE INTO marketplace_item_blobs (item_hash, item_data) VALUES (?, ?)")) {
+      stmt.setBytes(1, itemHash);
+      stmt.setBytes(2, itemData);
+      stmt.executeUpdate();
+    }
+  }
+
+  /**
+   * Read a row's item payload from its blob, falling back to the inline
+   * column for rows that have not been migrated yet
+   */
+  public static byte[] read(ResultSet rs) throws SQLException {
+    byte[] itemData = rs.getBytes(DATA_ALIAS);
+    return itemData != null ? itemData : rs.getBytes("item_data");
+  }
+}
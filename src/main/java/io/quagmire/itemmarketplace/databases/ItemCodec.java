@@ -0,0 +1,142 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.core.utilities.item.ItemStackSerializer;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The stored form of serialized items. Encoded payloads start with a magic
+ * header and a format version, followed by flags and the payload, which is
+ * Deflate compressed when that makes it smaller. Payloads without the header
+ * were written before the codec existed and are the raw serializer output.
+ *
+ * Format 1: magic (4) | version (1) | flags (1) | [raw length (4) if deflated] | payload
+ */
+public final class ItemCodec {
+  public static final byte CURRENT_VERSION = 1;
+
+  private static final byte[] MAGIC = {'Q', 'M', 'I', 'C'};
+  private static final int HEADER_LENGTH = MAGIC.length + 2;
+  private static final byte FLAG_DEFLATE = 1;
+
+  // Payloads smaller than this rarely shrink enough to pay for the inflate
+  private static final int COMPRESS_THRESHOLD = 128;
+
+  private ItemCodec() {
+  }
+
+  /**
+   * Deserialize an item from its stored form, in any format
+   */
+  public static ItemStack deserialize(byte[] stored) throws IOException {
+    return ItemStackSerializer.deserializeItemStack(decode(stored));
+  }
+
+  /**
+   * Encode raw serializer output into the current format
+   */
+  public static byte[] encode(byte[] serialized) {
+    if (serialized.length >= COMPRESS_THRESHOLD) {
+      byte[] compressed = deflate(serialized);
+      if (compressed.length + 4 < serialized.length) {
+        return ByteBuffer.allocate(HEADER_LENGTH + 4 + compressed.length)
+            .put(MAGIC)
+            .put(CURRENT_VERSION)
+            .put(FLAG_DEFLATE)
+            .putInt(serialized.length)
+            .put(compressed)
+            .array();
+      }
+    }
+
+    return ByteBuffer.allocate(HEADER_LENGTH + serialized.length)
+        .put(MAGIC)
+        .put(CURRENT_VERSION)
+        .put((byte) 0)
+        .put(serialized)
+        .array();
+  }
+
+  /**
+   * Decode a stored payload back into raw serializer output
+   */
+  public static byte[] decode(byte[] stored) throws IOException {
+    if (!hasHeader(stored)) {
+      return stored;
+    }
+
+    byte version = stored[MAGIC.length];
+    if (version != CURRENT_VERSION) {
+      throw new IOException("Unsupported item format version " + version);
+    }
+
+    byte flags = stored[MAGIC.length + 1];
+    if ((flags & FLAG_DEFLATE) == 0) {
+      return Arrays.copyOfRange(stored, HEADER_LENGTH, stored.length);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH);
+    int rawLength = buffer.getInt();
+    return inflate(stored, buffer.position(), stored.length - buffer.position(), rawLength);
+  }
+
+  /**
+   * Whether a stored payload is already in the current format
+   */
+  public static boolean isCurrent(byte[] stored) {
+    return hasHeader(stored) && stored[MAGIC.length] == CURRENT_VERSION;
+  }
+
+  private static boolean hasHeader(byte[] stored) {
+    return stored.length >= HEADER_LENGTH && Arrays.equals(stored, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+  }
+
+  private static byte[] deflate(byte[] data) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+      byte[] buffer = new byte[1024];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] data, int offset, int length, int rawLength) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data, offset, length);
+
+      byte[] raw = new byte[rawLength];
+      int read = 0;
+      while (read < rawLength && !inflater.finished()) {
+        int count = inflater.inflate(raw, read, rawLength - read);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        read += count;
+      }
+      if (read != rawLength) {
+        throw new IOException("Truncated item payload, expected " + rawLength + " bytes but got " + read);
+      }
+      return raw;
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt item payload", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+
+import java.sql.SQLException;
+
+/**
+ * Fills the item metadata columns of rows written before they existed, so
+ * loading listings and seeding price statistics never need the stored item.
+ * The transactions are only backfilled after the listings, as purchases copy
+ * the metadata from the listing row, and the daily rollups only start once the
+ * transactions carry their material.
+ */
+public class ItemMetadataBackfillJob extends BackfillJob {
+  private final Runnable next;
+
+  /**
+   * @param next Started once this job has finished, or null
+   */
+  public ItemMetadataBackfillJob(ItemMarketplacePlugin plugin, Table table, Runnable next) {
+    super(plugin, table, "item-metadata");
+    this.next = next;
+  }
+
+  @Override
+  protected int runBatch(long afterId, long toId) throws SQLException {
+    DatabaseCollection databases = plugin.getDatabaseCollection();
+    return table == Table.LISTINGS ?
+        databases.getListingsDatabase().backfillItemMetadata(afterId, toId) :
+        databases.getTransactionHistoryDatabase().backfillItemMetadata(afterId, toId);
+  }
+
+  @Override
+  protected void onComplete() {
+    if (next != null) {
+      next.run();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.ItemBlobsDatabase;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Rewrites stored item blobs that are not in the current {@link ItemCodec}
+ * format, walking the blob table in chunks with a pause in between. Started
+ * by an administrator; blobs already in the current format are skipped, so
+ * an interrupted run can simply be started again.
+ */
+public class ItemReencodeJob {
+  private final ItemMarketplacePlugin plugin;
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile boolean stopped;
+
+  public record Result(long blobs, long reencoded, long failed, long bytesBefore, long bytesAfter) {
+  }
+
+  public ItemReencodeJob(ItemMarketplacePlugin plugin) {
+    this.plugin = plugin;
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  /**
+   * Start a run in the background
+   *
+   * @param onComplete Called from the job thread with the totals once the run finishes
+   * @return False if a run is already in progress
+   */
+  public boolean start(Consumer<Result> onComplete) {
+    if (!running.compareAndSet(false, true)) {
+      return false;
+    }
+
+    stopped = false;
+    Thread thread = new Thread(() -> {
+      try {
+        Result result = run();
+        if (result != null) {
+          onComplete.accept(result);
+        }
+      } finally {
+        running.set(false);
+      }
+    }, "ItemMarketplace-item-reencode");
+    thread.setDaemon(true);
+    thread.start();
+    return true;
+  }
+
+  public void stop() {
+    stopped = true;
+  }
+
+  private Result run() {
+    ItemBlobsDatabase db = plugin.getDatabaseCollection().getItemBlobsDatabase();
+    int batchSize = Math.max(1, plugin.getConfig().getInt("jobs.batch-size", 1000));
+    long pauseMillis = Math.max(0L, plugin.getConfig().getLong("jobs.pause-millis", 50L));
+
+    long blobs = 0;
+    long reencoded = 0;
+    long failed = 0;
+    long bytesBefore = 0;
+    long bytesAfter = 0;
+    byte[] cursor = null;
+
+    try {
+      while (!stopped) {
+        List<ItemBlobsDatabase.ItemBlob> chunk = db.getBlobs(cursor, batchSize);
+        if (chunk.isEmpty()) break;
+
+        List<ItemBlobsDatabase.ItemBlob> updates = new ArrayList<>();
+        for (ItemBlobsDatabase.ItemBlob blob : chunk) {
+          blobs++;
+          bytesBefore += blob.itemData().length;
+
+          byte[] itemData = blob.itemData();
+          if (!ItemCodec.isCurrent(itemData)) {
+            try {
+              itemData = ItemCodec.encode(ItemCodec.decode(itemData));
+              updates.add(new ItemBlobsDatabase.ItemBlob(blob.itemHash(), itemData));
+            } catch (IOException e) {
+              failed++;
+              plugin.getLogger().warning("Could not re-encode item blob: " + e.getMessage());
+            }
+          }
+          bytesAfter += itemData.length;
+        }
+
+        db.updateBlobs(updates);
+        reencoded += updates.size();
+        cursor = chunk.get(chunk.size() - 1).itemHash();
+
+        if (chunk.size() < batchSize) break;
+        if (pauseMillis > 0) {
+          Thread.sleep(pauseMillis);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (SQLException e) {
+      plugin.getLogger().severe("Item re-encode failed after " + blobs + " blobs: " + e.getMessage());
+      return null;
+    }
+
+    Result result = new Result(blobs, reencoded, failed, bytesBefore, bytesAfter);
+    plugin.getLogger().info("Item re-encode " + (stopped ? "stopped" : "finished") + ": " + reencoded + " of " + blobs +
+        " blobs rewritten, " + failed + " failed, " + bytesBefore + " -> " + bytesAfter + " bytes");
+    return result;
+  }
+}
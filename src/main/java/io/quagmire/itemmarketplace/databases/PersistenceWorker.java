@@ -0,0 +1,217 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for marketplace mutations. Callers apply their change in
+ * memory, submit the database work here and get a future back; a single worker
+ * thread drains the queue in batches, coalescing each run of consecutive
+ * listing deactivations into one batched update.
+ */
+public class PersistenceWorker {
+  private static final int MAX_DRAIN = 256;
+
+  private final ItemMarketplacePlugin plugin;
+  private final LinkedBlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+  private final Thread thread;
+  private volatile boolean accepting = true;
+  private boolean stopped;
+
+  @FunctionalInterface
+  public interface SqlTask<T> {
+    T run() throws SQLException;
+  }
+
+  public PersistenceWorker(ItemMarketplacePlugin plugin) {
+    this.plugin = plugin;
+    this.thread = new Thread(this::run, "ItemMarketplace-Persistence");
+    this.thread.setDaemon(true);
+  }
+
+  public void start() {
+    thread.start();
+  }
+
+  /**
+   * Queue arbitrary database work, run in submission order
+   */
+  public <T> CompletableFuture<T> submit(SqlTask<T> task) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    enqueue(new TaskWrite<>(task, future), future);
+    return future;
+  }
+
+  /**
+   * Queue a listing deactivation, coalesced with every other deactivation in the same drain
+   *
+   * @return Completes with whether the listing was deactivated by this write
+   */
+  public CompletableFuture<Boolean> deactivateListing(long listingId) {
+    CompletableFuture<Boolean> future = new CompletableFuture<>();
+    enqueue(new DeactivateWrite(listingId, future), future);
+    return future;
+  }
+
+  private void enqueue(PendingWrite write, CompletableFuture<?> future) {
+    if (!accepting) {
+      future.completeExceptionally(new IllegalStateException("Persistence worker is shutting down"));
+      return;
+    }
+    queue.add(write);
+  }
+
+  /**
+   * Stop accepting work and wait for everything already queued to be written
+   */
+  public void shutdown(long timeoutMillis) {
+    accepting = false;
+    queue.add(new StopWrite());
+
+    try {
+      thread.join(timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (thread.isAlive()) {
+      plugin.getLogger().severe("Persistence worker did not drain within " + timeoutMillis + "ms, " + queue.size() + " writes were dropped");
+      thread.interrupt();
+    }
+  }
+
+  private void run() {
+    List<PendingWrite> batch = new ArrayList<>(MAX_DRAIN);
+    boolean interrupted = false;
+
+    while (!stopped) {
+      try {
+        PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+          continue;
+        }
+
+        batch.add(first);
+        queue.drainTo(batch, MAX_DRAIN - 1);
+        process(batch);
+      } catch (InterruptedException e) {
+        interrupted = true;
+        break;
+      } catch (Exception e) {
+        plugin.getLogger().severe("Persistence worker failed to process writes: " + e.getMessage());
+      } finally {
+        batch.clear();
+      }
+    }
+
+    // Writes that raced the shutdown flag are still written, unless the drain timed out
+    if (!interrupted) {
+      queue.drainTo(batch);
+      process(batch);
+    }
+
+    PendingWrite write;
+    while ((write = queue.poll()) != null) {
+      write.fail(new IllegalStateException("Persistence worker stopped"));
+    }
+  }
+
+  /**
+   * Run one drained batch in submission order. Consecutive deactivations are
+   * coalesced and flushed before the next task runs, so a task never reaches
+   * the database ahead of a deactivation submitted before it.
+   */
+  private void process(List<PendingWrite> batch) {
+    Map<Long, List<CompletableFuture<Boolean>>> deactivations = new LinkedHashMap<>();
+
+    for (PendingWrite write : batch) {
+      if (write instanceof StopWrite) {
+        stopped = true;
+      } else if (write instanceof DeactivateWrite deactivate) {
+        deactivations.computeIfAbsent(deactivate.listingId, id -> new ArrayList<>()).add(deactivate.future);
+      } else {
+        flushDeactivations(deactivations);
+        write.execute();
+      }
+    }
+
+    flushDeactivations(deactivations);
+  }
+
+  private void flushDeactivations(Map<Long, List<CompletableFuture<Boolean>>> deactivations) {
+    if (deactivations.isEmpty()) return;
+
+    try {
+      Map<Long, Boolean> results = plugin.getDatabaseCollection().getListingsDatabase().deactivateListings(deactivations.keySet());
+      deactivations.forEach((listingId, futures) -> {
+        boolean deactivated = results.getOrDefault(listingId, false);
+        // Only the first write for a coalesced listing can have changed it
+        for (int i = 0; i < futures.size(); i++) {
+          futures.get(i).complete(deactivated && i == 0);
+        }
+      });
+    } catch (SQLException | RuntimeException e) {
+      plugin.getLogger().severe("Failed to deactivate " + deactivations.size() + " listings: " + e.getMessage());
+      deactivations.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+    }
+    deactivations.clear();
+  }
+
+  private interface PendingWrite {
+    default void execute() {
+    }
+
+    default void fail(Throwable cause) {
+    }
+  }
+
+  private static final class TaskWrite<T> implements PendingWrite {
+    private final SqlTask<T> task;
+    private final CompletableFuture<T> future;
+
+    private TaskWrite(SqlTask<T> task, CompletableFuture<T> future) {
+      this.task = task;
+      this.future = future;
+    }
+
+    @Override
+    public void execute() {
+      try {
+        future.complete(task.run());
+      } catch (Exception e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    @Override
+    public void fail(Throwable cause) {
+      future.completeExceptionally(cause);
+    }
+  }
+
+  private static final class DeactivateWrite implements PendingWrite {
+    private final long listingId;
+    private final CompletableFuture<Boolean> future;
+
+    private DeactivateWrite(long listingId, CompletableFuture<Boolean> future) {
+      this.listingId = listingId;
+      this.future = future;
+    }
+
+    @Override
+    public void fail(Throwable cause) {
+      future.completeExceptionally(cause);
+    }
+  }
+
+  private static final class StopWrite implements PendingWrite {
+  }
+}
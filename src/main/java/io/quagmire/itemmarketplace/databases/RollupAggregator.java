@@ -0,0 +1,99 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.BackgroundJobsDatabase;
+import io.quagmire.itemmarketplace.databases.implementations.RollupsDatabase;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps the daily rollup tables up to date from a high-water-mark transaction
+ * id. While far behind, such as on first start over years of history, it
+ * catches up in back-to-back batches with only a short pause between them;
+ * once caught up it wakes on an interval and folds in the new transactions.
+ * Every server runs one; each batch checks the shared mark under a lock, and
+ * a server that finds it already advanced picks up from the new mark.
+ */
+public class RollupAggregator {
+  private static final String JOB_NAME = "daily-rollups";
+
+  private final ItemMarketplacePlugin plugin;
+  private final int batchSize;
+  private final long pauseMillis;
+  private final long intervalMillis;
+  private final int lagSeconds;
+
+  private volatile boolean stopped;
+  private Thread thread;
+
+  public RollupAggregator(ItemMarketplacePlugin plugin) {
+    this.plugin = plugin;
+    this.batchSize = Math.max(1, plugin.getConfig().getInt("rollups.batch-size", 5000));
+    this.pauseMillis = Math.max(0L, plugin.getConfig().getLong("jobs.pause-millis", 50L));
+    this.intervalMillis = Math.max(1L, plugin.getConfig().getLong("rollups.interval-seconds", 60L)) * 1000L;
+    this.lagSeconds = Math.max(0, plugin.getConfig().getInt("rollups.lag-seconds", 10));
+  }
+
+  public void start() {
+    thread = new Thread(this::run, "ItemMarketplace-rollups");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public void stop() {
+    stopped = true;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void run() {
+    BackgroundJobsDatabase jobs = plugin.getDatabaseCollection().getBackgroundJobsDatabase();
+    RollupsDatabase rollups = plugin.getDatabaseCollection().getRollupsDatabase();
+    boolean catchingUp = false;
+
+    while (!stopped) {
+      try {
+        long cursor = jobs.getProgress(JOB_NAME).lastId();
+        long start = cursor;
+        int batches = 0;
+
+        while (!stopped) {
+          long toId = rollups.getRollupCeiling(cursor, lagSeconds, batchSize);
+          if (toId <= cursor) break;
+
+          if (!rollups.aggregate(JOB_NAME, cursor, toId)) {
+            // Another server folded this range in first
+            cursor = jobs.getProgress(JOB_NAME).lastId();
+            continue;
+          }
+          cursor = toId;
+
+          if (++batches == 2 && !catchingUp) {
+            catchingUp = true;
+            plugin.getLogger().info("Catching up daily rollups from transaction " + start);
+          }
+          if (pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+          }
+        }
+
+        if (catchingUp) {
+          catchingUp = false;
+          plugin.getLogger().info("Daily rollups caught up to transaction " + cursor);
+        }
+      } catch (InterruptedException e) {
+        return;
+      } catch (SQLException e) {
+        if (stopped) return;
+        plugin.getLogger().severe("Failed to update daily rollups: " + e.getMessage());
+      }
+
+      try {
+        Thread.sleep(intervalMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
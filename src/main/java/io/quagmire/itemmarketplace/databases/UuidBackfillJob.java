@@ -0,0 +1,40 @@
+package io.quagmire.itemmarketplace.databases;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+
+import java.sql.SQLException;
+
+/**
+ * Fills the BINARY(16) player id columns of rows written before they existed,
+ * then switches the table's lookups over to them and drops the indexes on the
+ * CHAR(36) columns they replace
+ */
+public class UuidBackfillJob extends BackfillJob {
+  public UuidBackfillJob(ItemMarketplacePlugin plugin, Table table) {
+    super(plugin, table, "uuid-backfill");
+  }
+
+  @Override
+  protected int runBatch(long afterId, long toId) throws SQLException {
+    DatabaseCollection databases = plugin.getDatabaseCollection();
+    return table == Table.LISTINGS ?
+        databases.getListingsDatabase().backfillBinaryUuids(afterId, toId) :
+        databases.getTransactionHistoryDatabase().backfillBinaryUuids(afterId, toId);
+  }
+
+  @Override
+  protected void onComplete() {
+    DatabaseCollection databases = plugin.getDatabaseCollection();
+    try {
+      if (table == Table.LISTINGS) {
+        databases.getListingsDatabase().setBinaryUuidReads(true);
+        databases.getListingsDatabase().dropTextUuidIndexes();
+      } else {
+        databases.getTransactionHistoryDatabase().setBinaryUuidReads(true);
+        databases.getTransactionHistoryDatabase().dropTextUuidIndexes();
+      }
+    } catch (SQLException e) {
+      plugin.getLogger().warning("Failed to drop the text UUID indexes of " + table.name().toLowerCase() + ", retrying on the next start: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package io.quagmire.itemmarketplace.databases;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Converts player ids to and from their 16 byte BINARY(16) column form
+ */
+public final class UuidBytes {
+  private UuidBytes() {
+  }
+
+  public static byte[] toBytes(UUID uuid) {
+    return ByteBuffer.allocate(16)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+
+  public static UUID fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * Read a player id from its binary column, falling back to the text column
+   * for rows the backfill has not reached yet
+   */
+  public static UUID read(ResultSet rs, String binaryColumn, String textColumn) throws SQLException {
+    byte[] bytes = rs.getBytes(binaryColumn);
+    return bytes != null && bytes.length == 16 ? fromBytes(bytes) : UUID.fromString(rs.getString(textColumn));
+  }
+}
@@ -0,0 +1,90 @@
+package io.quagmire.itemmarketplace.databases.implementations;
+
+import io.quagmire.core.CorePlugin;
+import io.quagmire.core.databases.Database;
+import io.quagmire.core.databases.DatabaseConnectionPool;
+
+import java.sql.*;
+
+public class BackgroundJobsDatabase extends Database {
+  private final DatabaseConnectionPool pool;
+  
+  public BackgroundJobsDatabase(CorePlugin plugin, DatabaseConnectionPool pool) {
+    super(plugin, pool);
+    this.pool = pool;
+  }
+  
+  /**
+   * Get the saved progress of a background job
+   *
+   * @return The progress, starting from nothing if the job never ran
+   */
+  public JobProgress getProgress(String jobName) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT last_id, completed FROM marketplace_background_jobs WHERE job_name = ?")) {
+        
+        stmt.setString(1, jobName);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return new JobProgress(rs.getLong("last_id"), rs.getBoolean("completed"));
+            }
+            return new JobProgress(0, false);
+        }
+    }
+  }
+  
+  /**
+   * Save how far a background job has got
+   */
+  public void saveProgress(String jobName, JobProgress progress) throws SQLException {
+    try (Connection connection = pool.getConnection()) {
+        saveProgress(connection, jobName, progress);
+    }
+  }
+  
+  /**
+   * Save how far a background job has got on the caller's connection, so it
+   * can commit together with the job's own writes
+   */
+  public static void saveProgress(Connection connection, String jobName, JobProgress progress) throws SQLException {
+    try (PreparedStatement stmt = connection.prepareStatement(
+            "INSERT INTO marketplace_background_jobs (job_name, last_id, completed, last_update_date_utc) " +
+            "VALUES (?, ?, ?, UTC_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE last_id = VALUES(last_id), completed = VALUES(completed), " +
+            "last_update_date_utc = UTC_TIMESTAMP")) {
+        
+        stmt.setString(1, jobName);
+        stmt.setLong(2, progress.lastId());
+        stmt.setBoolean(3, progress.completed());
+        stmt.executeUpdate();
+    }
+  }
+  
+  /**
+   * Lock a background job's progress row on the caller's connection until its
+   * transaction ends, creating the row if the job never ran
+   *
+   * @return The job's high-water mark as saved when the lock was taken
+   */
+  public static long lockProgress(Connection connection, String jobName) throws SQLException {
+    try (PreparedStatement stmt = connection.prepareStatement(
+            "INSERT IGNORE INTO marketplace_background_jobs (job_name, last_id, completed, last_update_date_utc) " +
+            "VALUES (?, 0, FALSE, UTC_TIMESTAMP)")) {
+        stmt.setString(1, jobName);
+        stmt.executeUpdate();
+    }
+    
+    try (PreparedStatement stmt = connection.prepareStatement(
+            "SELECT last_id FROM marketplace_background_jobs WHERE job_name = ? FOR UPDATE")) {
+        stmt.setString(1, jobName);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+  }
+  
+  public record JobProgress(long lastId, boolean completed) {
+  }
+}
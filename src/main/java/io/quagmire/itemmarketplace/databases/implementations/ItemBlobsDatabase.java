@@ -0,0 +1,76 @@
+package io.quagmire.itemmarketplace.databases.implementations;
+
+import io.quagmire.core.CorePlugin;
+import io.quagmire.core.databases.Database;
+import io.quagmire.core.databases.DatabaseConnectionPool;
+import io.quagmire.itemmarketplace.databases.DatabaseTransactions;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ItemBlobsDatabase extends Database {
+  private final DatabaseConnectionPool pool;
+  
+  public ItemBlobsDatabase(CorePlugin plugin, DatabaseConnectionPool pool) {
+    super(plugin, pool);
+    this.pool = pool;
+  }
+  
+  /**
+   * Read one keyset chunk of stored item blobs, ordered by hash
+   *
+   * @param afterHash The hash of the last blob of the previous chunk, or null to start from the beginning
+   */
+  public List<ItemBlob> getBlobs(byte[] afterHash, int limit) throws SQLException {
+    List<ItemBlob> blobs = new ArrayList<>(limit);
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT item_hash, item_data FROM marketplace_item_blobs " +
+            (afterHash == null ? "" : "WHERE item_hash > ? ") +
+            "ORDER BY item_hash LIMIT ?")) {
+        
+        int index = 1;
+        if (afterHash != null) {
+            stmt.setBytes(index++, afterHash);
+        }
+        stmt.setInt(index, limit);
+        stmt.setFetchSize(limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                blobs.add(new ItemBlob(rs.getBytes("item_hash"), rs.getBytes("item_data")));
+            }
+        }
+    }
+    
+    return blobs;
+  }
+  
+  /**
+   * Replace the stored payload of several blobs in one batch. The hash of a
+   * blob identifies the decoded item, so it stays the same across formats.
+   */
+  public void updateBlobs(List<ItemBlob> blobs) throws SQLException {
+    if (blobs.isEmpty()) return;
+    
+    try (Connection connection = pool.getConnection()) {
+        DatabaseTransactions.inTransaction(connection, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE marketplace_item_blobs SET item_data = ? WHERE item_hash = ?")) {
+                for (ItemBlob blob : blobs) {
+                    stmt.setBytes(1, blob.itemData());
+                    stmt.setBytes(2, blob.itemHash());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            return null;
+        });
+    }
+  }
+  
+  public record ItemBlob(byte[] itemHash, byte[] itemData) {
+  }
+}
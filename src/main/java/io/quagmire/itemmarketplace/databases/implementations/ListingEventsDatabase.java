@@ -0,0 +1,105 @@
+package io.quagmire.itemmarketplace.databases.implementations;
+
+import io.quagmire.core.CorePlugin;
+import io.quagmire.core.databases.Database;
+import io.quagmire.core.databases.DatabaseConnectionPool;
+import io.quagmire.itemmarketplace.databases.UuidBytes;
+import io.quagmire.itemmarketplace.manager.bus.ListingChange;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class ListingEventsDatabase extends Database {
+  private final DatabaseConnectionPool pool;
+  
+  public ListingEventsDatabase(CorePlugin plugin, DatabaseConnectionPool pool) {
+    super(plugin, pool);
+    this.pool = pool;
+  }
+  
+  /**
+   * Write a batch of listing changes made on one server
+   *
+   * @param originId The id of the server that made the changes
+   */
+  public void insertEvents(UUID originId, List<ListingChange> changes) throws SQLException {
+    if (changes.isEmpty()) return;
+    byte[] origin = UuidBytes.toBytes(originId);
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "INSERT INTO marketplace_listing_events (origin_id, listing_id, change_type, version, create_date_utc) " +
+            "VALUES (?, ?, ?, ?, UTC_TIMESTAMP)")) {
+        
+        for (ListingChange change : changes) {
+            stmt.setBytes(1, origin);
+            stmt.setLong(2, change.listingId());
+            stmt.setInt(3, change.type().getCode());
+            stmt.setLong(4, change.version());
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+    }
+  }
+  
+  /**
+   * Get the id of the newest event, 0 if there are none
+   */
+  public long getMaxEventId() throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT COALESCE(MAX(event_id), 0) FROM marketplace_listing_events");
+         ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+  
+  /**
+   * Read the events after an event id, oldest first
+   */
+  public List<ListingEvent> getEvents(long afterId, int limit) throws SQLException {
+    List<ListingEvent> events = new ArrayList<>();
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT event_id, origin_id, listing_id, change_type, version FROM marketplace_listing_events " +
+            "WHERE event_id > ? ORDER BY event_id LIMIT ?")) {
+        
+        stmt.setLong(1, afterId);
+        stmt.setInt(2, limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                // Types written by a newer version of the plugin are skipped
+                ListingChange.Type type = ListingChange.Type.fromCode(rs.getInt("change_type"));
+                ListingChange change = type == null ? null :
+                    new ListingChange(rs.getLong("listing_id"), type, rs.getLong("version"));
+                events.add(new ListingEvent(rs.getLong("event_id"), UuidBytes.fromBytes(rs.getBytes("origin_id")), change));
+            }
+        }
+    }
+    
+    return events;
+  }
+  
+  /**
+   * Delete events older than the retention period, a bounded number at a time
+   *
+   * @return The number of events deleted
+   */
+  public int pruneEvents(int retentionSeconds, int limit) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "DELETE FROM marketplace_listing_events WHERE create_date_utc < UTC_TIMESTAMP - INTERVAL ? SECOND LIMIT ?")) {
+        
+        stmt.setInt(1, retentionSeconds);
+        stmt.setInt(2, limit);
+        return stmt.executeUpdate();
+    }
+  }
+  
+  public record ListingEvent(long eventId, UUID originId, ListingChange change) {
+  }
+}
@@ -4,24 +4,60 @@ import io.quagmire.core.CorePlugin;
 import io.quagmire.core.databases.Database;
 import io.quagmire.core.databases.DatabaseConnectionPool;
 import io.quagmire.core.utilities.item.ItemStackSerializer;
+import io.quagmire.itemmarketplace.databases.DatabaseIndexes;
+import io.quagmire.itemmarketplace.databases.DatabaseTransactions;
+import io.quagmire.itemmarketplace.databases.ItemBlobs;
+import io.quagmire.itemmarketplace.databases.ItemCodec;
+import io.quagmire.itemmarketplace.databases.UuidBytes;
+import io.quagmire.itemmarketplace.manager.index.SearchTokenizer;
+import io.quagmire.itemmarketplace.manager.stats.ItemSignature;
+import io.quagmire.itemmarketplace.model.ListingCursor;
 import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import io.quagmire.itemmarketplace.sort.ListingSortType;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class ListingsDatabase extends Database {
+  private static final int BATCH_SIZE = 500;
+  private static final String SELECT_LISTINGS = ItemBlobs.selectWithBlob("marketplace_listings");
+  
   private final DatabaseConnectionPool pool;
   
+  // Look sellers up by the binary column once every row has it filled in
+  private volatile boolean binaryUuidReads;
+  
   public ListingsDatabase(CorePlugin plugin, DatabaseConnectionPool pool) {
     super(plugin, pool);
     this.pool = pool;
   }
   
+  /**
+   * Switch seller lookups to the binary UUID column, called once the backfill
+   * of rows written before it existed has finished
+   */
+  public void setBinaryUuidReads(boolean binaryUuidReads) {
+    this.binaryUuidReads = binaryUuidReads;
+  }
+  
+  /**
+   * Drop the index on the CHAR(36) seller column once lookups use the binary one
+   */
+  public void dropTextUuidIndexes() throws SQLException {
+    DatabaseIndexes.dropIfExists(pool, "marketplace_listings", "idx_seller");
+  }
+  
   /**
    * Get all active listings from the database
    */
@@ -30,7 +66,51 @@ public class ListingsDatabase extends Database {
     
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_listings WHERE is_active = TRUE")) {
+            SELECT_LISTINGS + "WHERE is_active = TRUE")) {
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                listings.add(MarketplaceListing.deserialize(rs));
+            }
+        }
+    }
+    
+    return listings;
+  }
+  
+  /**
+   * Count the active listings and find the bounds of their ids, used to
+   * partition a parallel load
+   */
+  public ActiveListingRange getActiveListingRange() throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT COUNT(*), MIN(listing_id), MAX(listing_id) FROM marketplace_listings WHERE is_active = TRUE");
+         ResultSet rs = stmt.executeQuery()) {
+        
+        if (!rs.next() || rs.getLong(1) == 0) {
+            return new ActiveListingRange(0, 0, 0);
+        }
+        return new ActiveListingRange(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+    }
+  }
+  
+  /**
+   * Read one keyset chunk of active listings with ids in (afterId, maxId],
+   * ordered by id so the last id of a chunk is the start of the next
+   */
+  public List<MarketplaceListing> getActiveListings(long afterId, long maxId, int limit) throws SQLException {
+    List<MarketplaceListing> listings = new ArrayList<>(limit);
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            SELECT_LISTINGS + "WHERE is_active = TRUE AND listing_id > ? AND listing_id <= ? " +
+            "ORDER BY listing_id LIMIT ?")) {
+        
+        stmt.setLong(1, afterId);
+        stmt.setLong(2, maxId);
+        stmt.setInt(3, limit);
+        stmt.setFetchSize(limit);
         
         try (ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
@@ -42,32 +122,123 @@ public class ListingsDatabase extends Database {
     return listings;
   }
   
+  /**
+   * Read one page of active, unexpired listings in the requested order using
+   * keyset pagination on (sort column, listing_id), so the cost of a page does
+   * not grow with its depth
+   *
+   * @param after The cursor of the last listing on the previous page, or null for the first page
+   */
+  public List<MarketplaceListing> getListingPage(ListingSortType sortType, ListingCursor after, int limit) throws SQLException {
+    boolean byPrice = sortType == ListingSortType.PRICE_LOW || sortType == ListingSortType.PRICE_HIGH;
+    boolean descending = sortType == ListingSortType.NEWEST || sortType == ListingSortType.PRICE_HIGH;
+    String column = byPrice ? "price" : "create_date_utc";
+    String comparison = descending ? "<" : ">";
+    String direction = descending ? "DESC" : "ASC";
+    
+    StringBuilder sql = new StringBuilder(
+        SELECT_LISTINGS + "WHERE is_active = TRUE " +
+        "AND (expiry_date_utc IS NULL OR expiry_date_utc > ?)");
+    if (after != null) {
+        sql.append(" AND (").append(column).append(' ').append(comparison).append(" ? OR (")
+           .append(column).append(" = ? AND listing_id ").append(comparison).append(" ?))");
+    }
+    sql.append(" ORDER BY ").append(column).append(' ').append(direction)
+       .append(", listing_id ").append(direction).append(" LIMIT ?");
+    
+    List<MarketplaceListing> listings = new ArrayList<>(limit);
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+        
+        int index = 1;
+        stmt.setTimestamp(index++, new Timestamp(System.currentTimeMillis()));
+        if (after != null) {
+            if (byPrice) {
+                stmt.setBigDecimal(index++, after.price());
+                stmt.setBigDecimal(index++, after.price());
+            } else {
+                stmt.setTimestamp(index++, after.createDateUtc());
+                stmt.setTimestamp(index++, after.createDateUtc());
+            }
+            stmt.setLong(index++, after.listingId());
+        }
+        stmt.setInt(index, limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                listings.add(MarketplaceListing.deserialize(rs));
+            }
+        }
+    }
+    
+    return listings;
+  }
+  
+  public record ActiveListingRange(long count, long minId, long maxId) {
+  }
+  
   /**
    * Create a new listing in the database
    */
   public MarketplaceListing createListing(UUID sellerUuid, ItemStack item, BigDecimal price, Timestamp expiryDate) throws SQLException {
+    return createListing(sellerUuid, item, price, expiryDate, false);
+  }
+  
+  /**
+   * Create a new listing in the database. The returned listing is built from the
+   * values already in hand and the generated key, so the row is never read back.
+   * The create and update timestamps are bound from the application clock, so
+   * the row holds exactly the values the returned listing carries.
+   *
+   * @param fetchDatabaseTimestamps Let the database assign the create and update
+   *                                timestamps and read them on the same connection
+   *                                instead of using the application clock
+   */
+  public MarketplaceListing createListing(UUID sellerUuid, ItemStack item, BigDecimal price, Timestamp expiryDate,
+                                          boolean fetchDatabaseTimestamps) throws SQLException {
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    
+    byte[] itemHash;
+    byte[] serializedItem;
+    try {
+        byte[] rawItem = ItemStackSerializer.serializeItemStack(item);
+        itemHash = ItemBlobs.hash(rawItem);
+        serializedItem = ItemCodec.encode(rawItem);
+    } catch (IOException e) {
+        throw new SQLException("Failed to serialize ItemStack", e);
+    }
+    String searchKeywords = SearchTokenizer.join(SearchTokenizer.keywords(item));
+    String itemSignature = ItemSignature.of(item);
+    
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "INSERT INTO marketplace_listings (seller_uuid, item_data, price, is_active, " +
-            "create_date_utc, last_update_date_utc, expiry_date_utc) " +
-            "VALUES (?, ?, ?, TRUE, UTC_TIMESTAMP, UTC_TIMESTAMP, ?)",
+            "INSERT INTO marketplace_listings (seller_uuid, seller_uuid_bin, item_hash, material, amount, search_keywords, " +
+            "item_signature, price, is_active, create_date_utc, last_update_date_utc, expiry_date_utc) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, " +
+            (fetchDatabaseTimestamps ? "UTC_TIMESTAMP, UTC_TIMESTAMP, ?)" : "?, ?, ?)"),
             Statement.RETURN_GENERATED_KEYS)) {
         
+        // The blob is stored first so the listing never references a missing payload
+        ItemBlobs.store(connection, itemHash, serializedItem);
+        
         stmt.setString(1, sellerUuid.toString());
+        stmt.setBytes(2, UuidBytes.toBytes(sellerUuid));
+        stmt.setBytes(3, itemHash);
+        stmt.setString(4, item.getType().name());
+        stmt.setInt(5, item.getAmount());
+        stmt.setString(6, searchKeywords);
+        stmt.setString(7, itemSignature);
+        stmt.setBigDecimal(8, price);
         
-        try {
-            byte[] serializedItem = ItemStackSerializer.serializeItemStack(item);
-            stmt.setBytes(2, serializedItem);
-        } catch (IOException e) {
-            throw new SQLException("Failed to serialize ItemStack", e);
+        int index = 9;
+        if (!fetchDatabaseTimestamps) {
+            stmt.setTimestamp(index++, now);
+            stmt.setTimestamp(index++, now);
         }
-        
-        stmt.setBigDecimal(3, price);
-        
         if (expiryDate != null) {
-            stmt.setTimestamp(4, expiryDate);
+            stmt.setTimestamp(index, expiryDate);
         } else {
-            stmt.setNull(4, Types.TIMESTAMP);
+            stmt.setNull(index, Types.TIMESTAMP);
         }
         
         int affectedRows = stmt.executeUpdate();
@@ -75,16 +246,32 @@ public class ListingsDatabase extends Database {
             throw new SQLException("Creating listing failed, no rows affected.");
         }
         
+        long listingId;
         try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
             if (generatedKeys.next()) {
-                long listingId = generatedKeys.getLong(1);
-                
-                // Retrieve the full listing to return
-                return getListingById(listingId);
+                listingId = generatedKeys.getLong(1);
             } else {
                 throw new SQLException("Creating listing failed, no ID obtained.");
             }
         }
+        
+        Timestamp createDate = now;
+        Timestamp lastUpdateDate = now;
+        if (fetchDatabaseTimestamps) {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT create_date_utc, last_update_date_utc FROM marketplace_listings WHERE listing_id = ?")) {
+                select.setLong(1, listingId);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        createDate = rs.getTimestamp("create_date_utc");
+                        lastUpdateDate = rs.getTimestamp("last_update_date_utc");
+                    }
+                }
+            }
+        }
+        
+        return new MarketplaceListing(listingId, sellerUuid, serializedItem, item.clone(), searchKeywords,
+            itemSignature, price, true, createDate, lastUpdateDate, expiryDate);
     }
   }
   
@@ -92,23 +279,161 @@ public class ListingsDatabase extends Database {
    * Deactivate a listing by its ID
    */
   public void deactivateListing(long listingId) throws SQLException {
+    deactivateListings(List.of(listingId));
+  }
+  
+  /**
+   * Deactivate several listings in one batch
+   *
+   * @return Whether each listing was deactivated by this call, keyed by listing id
+   */
+  public Map<Long, Boolean> deactivateListings(Collection<Long> listingIds) throws SQLException {
+    return updateListingStatus(listingIds, false);
+  }
+  
+  /**
+   * Set the active flag of several listings using JDBC batching on a single
+   * connection inside one transaction. The rows still to change are locked
+   * first, so a listing only counts as changed when this call changed it, even
+   * where the driver reports SUCCESS_NO_INFO for a rewritten batch.
+   *
+   * @return Whether each listing's status was changed by this call, keyed by listing id
+   */
+  public Map<Long, Boolean> updateListingStatus(Collection<Long> listingIds, boolean active) throws SQLException {
+    Map<Long, Boolean> results = new LinkedHashMap<>();
+    if (listingIds.isEmpty()) return results;
+    
+    try (Connection connection = pool.getConnection()) {
+        DatabaseTransactions.inTransaction(connection, conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE marketplace_listings SET is_active = ?, last_update_date_utc = UTC_TIMESTAMP " +
+                    "WHERE listing_id = ? AND is_active <> ?")) {
+                
+                List<Long> batch = new ArrayList<>(Math.min(listingIds.size(), BATCH_SIZE));
+                for (Long listingId : listingIds) {
+                    batch.add(listingId);
+                    if (batch.size() == BATCH_SIZE) {
+                        executeStatusBatch(conn, stmt, batch, active, results);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    executeStatusBatch(conn, stmt, batch, active, results);
+                }
+            }
+            return null;
+        });
+    }
+    
+    return results;
+  }
+  
+  private static void executeStatusBatch(Connection conn, PreparedStatement stmt, List<Long> listingIds,
+                                         boolean active, Map<Long, Boolean> results) throws SQLException {
+    Set<Long> locked = lockListingsToChange(conn, listingIds, active);
+    
+    for (Long listingId : listingIds) {
+        stmt.setBoolean(1, active);
+        stmt.setLong(2, listingId);
+        stmt.setBoolean(3, active);
+        stmt.addBatch();
+    }
+    int[] updateCounts = stmt.executeBatch();
+    
+    for (int i = 0; i < listingIds.size(); i++) {
+        Long listingId = listingIds.get(i);
+        int count = i < updateCounts.length ? updateCounts[i] : Statement.EXECUTE_FAILED;
+        // A rewritten batch gives no per-row count, so fall back to the rows locked before it
+        boolean changed = count == Statement.SUCCESS_NO_INFO ? locked.contains(listingId) : count > 0;
+        results.put(listingId, changed);
+    }
+  }
+  
+  /**
+   * Lock the given listings whose active flag differs from the target
+   *
+   * @return The ids of the locked listings
+   */
+  private static Set<Long> lockListingsToChange(Connection conn, List<Long> listingIds, boolean active) throws SQLException {
+    Set<Long> locked = new HashSet<>();
+    String placeholders = String.join(", ", Collections.nCopies(listingIds.size(), "?"));
+    try (PreparedStatement select = conn.prepareStatement(
+            "SELECT listing_id FROM marketplace_listings " +
+            "WHERE listing_id IN (" + placeholders + ") AND is_active <> ? FOR UPDATE")) {
+        int index = 1;
+        for (Long listingId : listingIds) {
+            select.setLong(index++, listingId);
+        }
+        select.setBoolean(index, active);
+        
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                locked.add(rs.getLong(1));
+            }
+        }
+    }
+    return locked;
+  }
+  
+  /**
+   * Check whether any active listing has expired, without taking locks
+   */
+  public boolean hasExpiredListings() throws SQLException {
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "UPDATE marketplace_listings SET is_active = FALSE, last_update_date_utc = UTC_TIMESTAMP " +
-            "WHERE listing_id = ?")) {
-        
-        stmt.setLong(1, listingId);
-        stmt.executeUpdate();
+            "SELECT 1 FROM marketplace_listings " +
+            "WHERE is_active = TRUE AND expiry_date_utc <= UTC_TIMESTAMP LIMIT 1");
+         ResultSet rs = stmt.executeQuery()) {
+        return rs.next();
     }
   }
   
+  /**
+   * Deactivate every active listing that expired by the database clock in a
+   * single set-based update
+   *
+   * @return The ids of the listings that were deactivated
+   */
+  public List<Long> expireListings() throws SQLException {
+    List<Long> expiredIds = new ArrayList<>();
+    
+    try (Connection connection = pool.getConnection()) {
+        DatabaseTransactions.inTransaction(connection, conn -> {
+            // Lock the rows first so the returned ids match exactly what the update deactivates
+            try (PreparedStatement select = conn.prepareStatement(
+                    "SELECT listing_id FROM marketplace_listings " +
+                    "WHERE is_active = TRUE AND expiry_date_utc <= UTC_TIMESTAMP FOR UPDATE")) {
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        expiredIds.add(rs.getLong(1));
+                    }
+                }
+            }
+            
+            if (!expiredIds.isEmpty()) {
+                try (PreparedStatement update = conn.prepareStatement(
+                        "UPDATE marketplace_listings SET is_active = FALSE, last_update_date_utc = UTC_TIMESTAMP " +
+                        "WHERE listing_id IN (" + String.join(", ", Collections.nCopies(expiredIds.size(), "?")) + ")")) {
+                    for (int i = 0; i < expiredIds.size(); i++) {
+                        update.setLong(i + 1, expiredIds.get(i));
+                    }
+                    update.executeUpdate();
+                }
+            }
+            return null;
+        });
+    }
+    
+    return expiredIds;
+  }
+  
   /**
    * Get a listing by its ID
    */
   public MarketplaceListing getListingById(long listingId) throws SQLException {
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_listings WHERE listing_id = ?")) {
+            SELECT_LISTINGS + "WHERE listing_id = ?")) {
         
         stmt.setLong(1, listingId);
         
@@ -123,16 +448,234 @@ public class ListingsDatabase extends Database {
   }
   
   /**
-   * Get all listings by a seller
+   * Read listings changed after the high-water mark (afterUpdate, afterId), in
+   * the order of (last_update_date_utc, listing_id) so the last row is the
+   * next mark. Active and deactivated rows are both returned. Rows changed in
+   * the last lagSeconds are held back until every write stamped with that
+   * second has committed, as the column only has second precision.
+   */
+  public List<MarketplaceListing> getChangedListings(Timestamp afterUpdate, long afterId, int lagSeconds, int limit) throws SQLException {
+    List<MarketplaceListing> listings = new ArrayList<>();
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            SELECT_LISTINGS + "WHERE (last_update_date_utc > ? OR (last_update_date_utc = ? AND listing_id > ?)) " +
+            "AND last_update_date_utc <= UTC_TIMESTAMP - INTERVAL ? SECOND " +
+            "ORDER BY last_update_date_utc, listing_id LIMIT ?")) {
+        
+        stmt.setTimestamp(1, afterUpdate);
+        stmt.setTimestamp(2, afterUpdate);
+        stmt.setLong(3, afterId);
+        stmt.setInt(4, lagSeconds);
+        stmt.setInt(5, limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                listings.add(MarketplaceListing.deserialize(rs));
+            }
+        }
+    }
+    
+    return listings;
+  }
+  
+  /**
+   * Get the database's UTC time some seconds ago, the clock that stamps
+   * last_update_date_utc, so change marks never depend on the JVM's clock
+   */
+  public Timestamp getUtcTimestamp(int secondsAgo) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT UTC_TIMESTAMP - INTERVAL ? SECOND")) {
+        
+        stmt.setInt(1, secondsAgo);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Reading the database time returned no row.");
+            }
+            return rs.getTimestamp(1);
+        }
+    }
+  }
+  
+  /**
+   * Get the listings with the given ids, active or not
+   */
+  public List<MarketplaceListing> getListingsByIds(Collection<Long> listingIds) throws SQLException {
+    List<MarketplaceListing> listings = new ArrayList<>(listingIds.size());
+    if (listingIds.isEmpty()) return listings;
+    
+    String placeholders = String.join(", ", Collections.nCopies(listingIds.size(), "?"));
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            SELECT_LISTINGS + "WHERE listing_id IN (" + placeholders + ")")) {
+        
+        int index = 1;
+        for (Long listingId : listingIds) {
+            stmt.setLong(index++, listingId);
+        }
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                listings.add(MarketplaceListing.deserialize(rs));
+            }
+        }
+    }
+    
+    return listings;
+  }
+  
+  /**
+   * Get the highest listing id, 0 if there are no listings
+   */
+  public long getMaxListingId() throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT COALESCE(MAX(listing_id), 0) FROM marketplace_listings");
+         ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+  
+  /**
+   * Fill the binary seller id of the listings with ids in (afterId, toId] that
+   * do not have it yet
+   *
+   * @return The number of listings updated
+   */
+  public int backfillBinaryUuids(long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "UPDATE marketplace_listings SET seller_uuid_bin = UNHEX(REPLACE(seller_uuid, '-', '')) " +
+            "WHERE listing_id > ? AND listing_id <= ? AND seller_uuid_bin IS NULL")) {
+        
+        stmt.setLong(1, afterId);
+        stmt.setLong(2, toId);
+        return stmt.executeUpdate();
+    }
+  }
+  
+  /**
+   * Move the inline item payloads of the listings with ids in (afterId, toId]
+   * into the blob table. Hashing happens on the server so no payload crosses
+   * the wire.
+   *
+   * @return The number of listings migrated
+   */
+  public int migrateItemBlobs(long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection()) {
+        return DatabaseTransactions.inTransaction(connection, conn -> {
+            try (PreparedStatement store = conn.prepareStatement(
+                    "INSERT IGNORE INTO marketplace_item_blobs (item_hash, item_data) " +
+                    "SELECT UNHEX(SHA2(item_data, 256)), item_data FROM marketplace_listings " +
+                    "WHERE listing_id > ? AND listing_id <= ? AND item_hash IS NULL AND item_data IS NOT NULL")) {
+                store.setLong(1, afterId);
+                store.setLong(2, toId);
+                store.executeUpdate();
+            }
+            
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE marketplace_listings SET item_hash = UNHEX(SHA2(item_data, 256)), item_data = NULL " +
+                    "WHERE listing_id > ? AND listing_id <= ? AND item_hash IS NULL AND item_data IS NOT NULL")) {
+                update.setLong(1, afterId);
+                update.setLong(2, toId);
+                return update.executeUpdate();
+            }
+        });
+    }
+  }
+  
+  /**
+   * Fill the material, amount, search keywords and item signature of the
+   * listings with ids in (afterId, toId] written before they were stored,
+   * materializing each item once on the calling thread
+   *
+   * @return The number of listings filled
+   */
+  public int backfillItemMetadata(long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement select = connection.prepareStatement(
+            "SELECT l.listing_id, COALESCE(b.item_data, l.item_data) AS legacy_item " +
+            "FROM marketplace_listings l LEFT JOIN marketplace_item_blobs b ON b.item_hash = l.item_hash " +
+            "WHERE l.listing_id > ? AND l.listing_id <= ? " +
+            "AND (l.item_signature IS NULL OR l.material IS NULL OR l.search_keywords IS NULL)");
+         PreparedStatement update = connection.prepareStatement(
+            "UPDATE marketplace_listings SET material = COALESCE(material, ?), amount = COALESCE(amount, ?), " +
+            "search_keywords = COALESCE(search_keywords, ?), item_signature = COALESCE(item_signature, ?) " +
+            "WHERE listing_id = ?")) {
+        
+        select.setLong(1, afterId);
+        select.setLong(2, toId);
+        
+        int filled = 0;
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                ItemStack item;
+                try {
+                    item = ItemCodec.deserialize(rs.getBytes("legacy_item"));
+                } catch (IOException e) {
+                    // An unreadable item cannot be described, so the row is left as it is
+                    continue;
+                }
+                
+                update.setString(1, item.getType().name());
+                update.setInt(2, item.getAmount());
+                update.setString(3, SearchTokenizer.join(SearchTokenizer.keywords(item)));
+                update.setString(4, ItemSignature.of(item));
+                update.setLong(5, rs.getLong("listing_id"));
+                update.addBatch();
+                filled++;
+            }
+        }
+        if (filled > 0) {
+            update.executeBatch();
+        }
+        return filled;
+    }
+  }
+  
+  /**
+   * Count the active listings of a seller
+   */
+  public int countActiveListingsBySeller(UUID sellerUuid) throws SQLException {
+    boolean binary = binaryUuidReads;
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT COUNT(*) FROM marketplace_listings WHERE " + (binary ? "seller_uuid_bin" : "seller_uuid") +
+            " = ? AND is_active = TRUE")) {
+        
+        if (binary) {
+            stmt.setBytes(1, UuidBytes.toBytes(sellerUuid));
+        } else {
+            stmt.setString(1, sellerUuid.toString());
+        }
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+  }
+  
+  /**
+   * Get all active listings by a seller
    */
   public List<MarketplaceListing> getListingsBySeller(UUID sellerUuid) throws SQLException {
     List<MarketplaceListing> listings = new ArrayList<>();
     
+    boolean binary = binaryUuidReads;
+    
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_listings WHERE seller_uuid = ?")) {
+            SELECT_LISTINGS + "WHERE " + (binary ? "seller_uuid_bin" : "seller_uuid") +
+            " = ? AND is_active = TRUE")) {
         
-        stmt.setString(1, sellerUuid.toString());
+        if (binary) {
+            stmt.setBytes(1, UuidBytes.toBytes(sellerUuid));
+        } else {
+            stmt.setString(1, sellerUuid.toString());
+        }
         
         try (ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
@@ -0,0 +1,180 @@
+package io.quagmire.itemmarketplace.databases.implementations;
+
+import io.quagmire.core.CorePlugin;
+import io.quagmire.core.databases.Database;
+import io.quagmire.core.databases.DatabaseConnectionPool;
+import io.quagmire.itemmarketplace.databases.DatabaseTransactions;
+import io.quagmire.itemmarketplace.databases.UuidBytes;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RollupsDatabase extends Database {
+  private final DatabaseConnectionPool pool;
+  
+  public RollupsDatabase(CorePlugin plugin, DatabaseConnectionPool pool) {
+    super(plugin, pool);
+    this.pool = pool;
+  }
+  
+  /**
+   * Get the end of the next batch to aggregate: the newest of the next limit
+   * transactions after afterId that was recorded at least lagSeconds ago. Only
+   * that stretch of the primary key is read, however far the history reaches.
+   * The lag covers settlements still committing and clock skew between the
+   * servers that stamp the rows and the database.
+   *
+   * @return The id, or afterId if no transaction after it is old enough yet
+   */
+  public long getRollupCeiling(long afterId, int lagSeconds, int limit) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT COALESCE(MAX(transaction_id), ?) FROM (" +
+            "SELECT transaction_id, transaction_date_utc FROM marketplace_transactions " +
+            "WHERE transaction_id > ? ORDER BY transaction_id LIMIT ?) batch " +
+            "WHERE transaction_date_utc <= UTC_TIMESTAMP - INTERVAL ? SECOND")) {
+        
+        stmt.setLong(1, afterId);
+        stmt.setLong(2, afterId);
+        stmt.setInt(3, limit);
+        stmt.setInt(4, lagSeconds);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : afterId;
+        }
+    }
+  }
+  
+  /**
+   * Fold the transactions with ids in (afterId, toId] into the daily rollups
+   * and advance the job's high-water mark in the same database transaction, so
+   * every transaction is counted exactly once. The job's progress row is
+   * locked first, so when several servers run the aggregator only the one
+   * still holding the current mark folds the range in.
+   *
+   * @return False if another server already advanced the mark past afterId
+   */
+  public boolean aggregate(String jobName, long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection()) {
+        return DatabaseTransactions.inTransaction(connection, conn -> {
+            if (BackgroundJobsDatabase.lockProgress(conn, jobName) != afterId) {
+                return false;
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO marketplace_daily_material_stats (stat_date, material, sales, items, revenue) " +
+                    "SELECT DATE(transaction_date_utc), COALESCE(material, 'UNKNOWN'), COUNT(*), " +
+                    "COALESCE(SUM(amount), 0), SUM(price) " +
+                    "FROM marketplace_transactions WHERE transaction_id > ? AND transaction_id <= ? " +
+                    "GROUP BY DATE(transaction_date_utc), COALESCE(material, 'UNKNOWN') " +
+                    "ON DUPLICATE KEY UPDATE sales = sales + VALUES(sales), items = items + VALUES(items), " +
+                    "revenue = revenue + VALUES(revenue)")) {
+                stmt.setLong(1, afterId);
+                stmt.setLong(2, toId);
+                stmt.executeUpdate();
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO marketplace_daily_seller_stats (stat_date, seller_uuid_bin, sales, items, revenue) " +
+                    "SELECT DATE(transaction_date_utc), " +
+                    "COALESCE(seller_uuid_bin, UNHEX(REPLACE(seller_uuid, '-', ''))) AS seller, COUNT(*), " +
+                    "COALESCE(SUM(amount), 0), SUM(price) " +
+                    "FROM marketplace_transactions WHERE transaction_id > ? AND transaction_id <= ? " +
+                    "GROUP BY DATE(transaction_date_utc), seller " +
+                    "ON DUPLICATE KEY UPDATE sales = sales + VALUES(sales), items = items + VALUES(items), " +
+                    "revenue = revenue + VALUES(revenue)")) {
+                stmt.setLong(1, afterId);
+                stmt.setLong(2, toId);
+                stmt.executeUpdate();
+            }
+            
+            BackgroundJobsDatabase.saveProgress(conn, jobName, new BackgroundJobsDatabase.JobProgress(toId, false));
+            return true;
+        });
+    }
+  }
+  
+  /**
+   * Get the marketplace totals of each day in a range, oldest first
+   */
+  public List<RollupTotal> getDailyTotals(LocalDate from, LocalDate to) throws SQLException {
+    List<RollupTotal> totals = new ArrayList<>();
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT stat_date, SUM(sales), SUM(items), SUM(revenue) FROM marketplace_daily_material_stats " +
+            "WHERE stat_date >= ? AND stat_date <= ? GROUP BY stat_date ORDER BY stat_date")) {
+        
+        stmt.setDate(1, Date.valueOf(from));
+        stmt.setDate(2, Date.valueOf(to));
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                totals.add(new RollupTotal(rs.getDate(1).toLocalDate().toString(), rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)));
+            }
+        }
+    }
+    
+    return totals;
+  }
+  
+  /**
+   * Get the materials with the most revenue over a range of days
+   */
+  public List<RollupTotal> getTopMaterials(LocalDate from, LocalDate to, int limit) throws SQLException {
+    List<RollupTotal> totals = new ArrayList<>();
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT material, SUM(sales), SUM(items), SUM(revenue) AS total_revenue FROM marketplace_daily_material_stats " +
+            "WHERE stat_date >= ? AND stat_date <= ? GROUP BY material ORDER BY total_revenue DESC LIMIT ?")) {
+        
+        stmt.setDate(1, Date.valueOf(from));
+        stmt.setDate(2, Date.valueOf(to));
+        stmt.setInt(3, limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                totals.add(new RollupTotal(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)));
+            }
+        }
+    }
+    
+    return totals;
+  }
+  
+  /**
+   * Get the sellers with the most revenue over a range of days, keyed by their UUID
+   */
+  public List<RollupTotal> getTopSellers(LocalDate from, LocalDate to, int limit) throws SQLException {
+    List<RollupTotal> totals = new ArrayList<>();
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT seller_uuid_bin, SUM(sales), SUM(items), SUM(revenue) AS total_revenue FROM marketplace_daily_seller_stats " +
+            "WHERE stat_date >= ? AND stat_date <= ? GROUP BY seller_uuid_bin ORDER BY total_revenue DESC LIMIT ?")) {
+        
+        stmt.setDate(1, Date.valueOf(from));
+        stmt.setDate(2, Date.valueOf(to));
+        stmt.setInt(3, limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String seller = UuidBytes.fromBytes(rs.getBytes(1)).toString();
+                totals.add(new RollupTotal(seller, rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)));
+            }
+        }
+    }
+    
+    return totals;
+  }
+  
+  /**
+   * Summed sales of one key of a rollup: a day, a material or a seller
+   */
+  public record RollupTotal(String key, long sales, long items, BigDecimal revenue) {
+  }
+}
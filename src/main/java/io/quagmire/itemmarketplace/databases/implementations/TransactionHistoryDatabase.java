@@ -4,7 +4,15 @@ import io.quagmire.core.CorePlugin;
 import io.quagmire.core.databases.Database;
 import io.quagmire.core.databases.DatabaseConnectionPool;
 import io.quagmire.core.utilities.item.ItemStackSerializer;
+import io.quagmire.itemmarketplace.databases.DatabaseIndexes;
+import io.quagmire.itemmarketplace.databases.DatabaseTransactions;
+import io.quagmire.itemmarketplace.databases.ItemBlobs;
+import io.quagmire.itemmarketplace.databases.ItemCodec;
+import io.quagmire.itemmarketplace.databases.UuidBytes;
+import io.quagmire.itemmarketplace.manager.stats.ItemSignature;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
 import io.quagmire.itemmarketplace.model.MarketplaceTransaction;
+import io.quagmire.itemmarketplace.model.TransactionCursor;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.IOException;
@@ -12,56 +20,196 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public class TransactionHistoryDatabase extends Database {
+  private static final String SELECT_TRANSACTIONS = ItemBlobs.selectWithBlob("marketplace_transactions");
+  
   private final DatabaseConnectionPool pool;
   
+  // Look players up by the binary columns once every row has them filled in
+  private volatile boolean binaryUuidReads;
+  
   public TransactionHistoryDatabase(CorePlugin plugin, DatabaseConnectionPool pool) {
     super(plugin, pool);
     this.pool = pool;
   }
   
+  /**
+   * Switch player lookups to the binary UUID columns, called once the backfill
+   * of rows written before they existed has finished
+   */
+  public void setBinaryUuidReads(boolean binaryUuidReads) {
+    this.binaryUuidReads = binaryUuidReads;
+  }
+  
+  /**
+   * Drop the history indexes on the CHAR(36) player columns once lookups use
+   * the binary ones
+   */
+  public void dropTextUuidIndexes() throws SQLException {
+    DatabaseIndexes.dropIfExists(pool, "marketplace_transactions", "idx_seller_history");
+    DatabaseIndexes.dropIfExists(pool, "marketplace_transactions", "idx_buyer_history");
+  }
+  
   /**
    * Record a new transaction
    */
   public MarketplaceTransaction recordTransaction(long listingId, UUID sellerUuid, UUID buyerUuid, 
                                                 ItemStack item, BigDecimal price) throws SQLException {
+    return recordTransaction(listingId, sellerUuid, buyerUuid, item, price, false);
+  }
+  
+  /**
+   * Record a new transaction. The returned transaction is built from the values
+   * already in hand and the generated key, so the row is never read back. The
+   * transaction date is bound from the application clock, so the row holds the
+   * same date the returned transaction carries.
+   *
+   * @param fetchDatabaseTimestamp Let the database assign the transaction date and
+   *                               read it on the same connection instead of using
+   *                               the application clock
+   */
+  public MarketplaceTransaction recordTransaction(long listingId, UUID sellerUuid, UUID buyerUuid, 
+                                                ItemStack item, BigDecimal price,
+                                                boolean fetchDatabaseTimestamp) throws SQLException {
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    
+    byte[] itemHash;
+    byte[] serializedItem;
+    try {
+        byte[] rawItem = ItemStackSerializer.serializeItemStack(item);
+        itemHash = ItemBlobs.hash(rawItem);
+        serializedItem = ItemCodec.encode(rawItem);
+    } catch (IOException e) {
+        throw new SQLException("Failed to serialize ItemStack", e);
+    }
+    
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "INSERT INTO marketplace_transactions (listing_id, seller_uuid, buyer_uuid, " +
-            "item_data, price, transaction_date_utc) " +
-            "VALUES (?, ?, ?, ?, ?, UTC_TIMESTAMP)",
+            "INSERT INTO marketplace_transactions (listing_id, seller_uuid, seller_uuid_bin, " +
+            "buyer_uuid, buyer_uuid_bin, item_hash, material, amount, item_signature, price, transaction_date_utc) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + (fetchDatabaseTimestamp ? "UTC_TIMESTAMP)" : "?)"),
             Statement.RETURN_GENERATED_KEYS)) {
         
+        ItemBlobs.store(connection, itemHash, serializedItem);
+        
         stmt.setLong(1, listingId);
         stmt.setString(2, sellerUuid.toString());
-        stmt.setString(3, buyerUuid.toString());
-        
-        try {
-            byte[] serializedItem = ItemStackSerializer.serializeItemStack(item);
-            stmt.setBytes(4, serializedItem);
-        } catch (IOException e) {
-            throw new SQLException("Failed to serialize ItemStack", e);
+        stmt.setBytes(3, UuidBytes.toBytes(sellerUuid));
+        stmt.setString(4, buyerUuid.toString());
+        stmt.setBytes(5, UuidBytes.toBytes(buyerUuid));
+        stmt.setBytes(6, itemHash);
+        stmt.setString(7, item.getType().name());
+        stmt.setInt(8, item.getAmount());
+        stmt.setString(9, ItemSignature.of(item));
+        stmt.setBigDecimal(10, price);
+        if (!fetchDatabaseTimestamp) {
+            stmt.setTimestamp(11, now);
         }
         
-        stmt.setBigDecimal(5, price);
-        
         int affectedRows = stmt.executeUpdate();
         if (affectedRows == 0) {
             throw new SQLException("Recording transaction failed, no rows affected.");
         }
         
+        long transactionId;
         try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
             if (generatedKeys.next()) {
-                long transactionId = generatedKeys.getLong(1);
-                
-                // Retrieve the full transaction to return
-                return getTransactionById(transactionId);
+                transactionId = generatedKeys.getLong(1);
             } else {
                 throw new SQLException("Recording transaction failed, no ID obtained.");
             }
         }
+        
+        Timestamp transactionDate = fetchDatabaseTimestamp ? getTransactionDate(connection, transactionId, now) : now;
+        return new MarketplaceTransaction(transactionId, listingId, sellerUuid, buyerUuid, serializedItem, item.clone(),
+            price, transactionDate);
+    }
+  }
+  
+  /**
+   * Settle a purchase in a single database transaction: the listing is only
+   * deactivated if it is still active and unexpired, and the transaction row is
+   * copied from the listing row on the server so the item is not sent over the
+   * wire again.
+   *
+   * The returned transaction is built from the in-memory listing, which holds
+   * the same values the row was copied from. It shares the listing's serialized
+   * item bytes and only materializes the item if it is read.
+   *
+   * @return The recorded transaction, or empty if the listing was no longer active or had expired
+   */
+  public Optional<MarketplaceTransaction> settlePurchase(MarketplaceListing listing, UUID buyerUuid) throws SQLException {
+    long listingId = listing.getListingId();
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    
+    try (Connection connection = pool.getConnection()) {
+        return DatabaseTransactions.inTransaction(connection, conn -> {
+            try (PreparedStatement claim = conn.prepareStatement(
+                    "UPDATE marketplace_listings SET is_active = FALSE, last_update_date_utc = UTC_TIMESTAMP " +
+                    "WHERE listing_id = ? AND is_active = TRUE AND (expiry_date_utc IS NULL OR expiry_date_utc > ?)")) {
+                claim.setLong(1, listingId);
+                claim.setTimestamp(2, now);
+                if (claim.executeUpdate() == 0) {
+                    return Optional.empty();
+                }
+            }
+            
+            // A listing the blob migration has not reached yet gets its payload stored
+            // here, so the transaction can always reference it by hash
+            try (PreparedStatement store = conn.prepareStatement(
+                    "INSERT IGNORE INTO marketplace_item_blobs (item_hash, item_data) " +
+                    "SELECT UNHEX(SHA2(item_data, 256)), item_data FROM marketplace_listings " +
+                    "WHERE listing_id = ? AND item_hash IS NULL AND item_data IS NOT NULL")) {
+                store.setLong(1, listingId);
+                store.executeUpdate();
+            }
+            
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO marketplace_transactions (listing_id, seller_uuid, seller_uuid_bin, " +
+                    "buyer_uuid, buyer_uuid_bin, item_hash, material, amount, item_signature, price, transaction_date_utc) " +
+                    "SELECT listing_id, seller_uuid, ?, ?, ?, COALESCE(item_hash, UNHEX(SHA2(item_data, 256))), " +
+                    "material, amount, item_signature, price, ? " +
+                    "FROM marketplace_listings WHERE listing_id = ?",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                insert.setBytes(1, UuidBytes.toBytes(listing.getSellerUuid()));
+                insert.setString(2, buyerUuid.toString());
+                insert.setBytes(3, UuidBytes.toBytes(buyerUuid));
+                insert.setTimestamp(4, now);
+                insert.setLong(5, listingId);
+                
+                if (insert.executeUpdate() == 0) {
+                    throw new SQLException("Settling purchase failed, no transaction recorded.");
+                }
+                
+                try (ResultSet generatedKeys = insert.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Settling purchase failed, no ID obtained.");
+                    }
+                    return Optional.of(new MarketplaceTransaction(
+                        generatedKeys.getLong(1),
+                        listingId,
+                        listing.getSellerUuid(),
+                        buyerUuid,
+                        listing.getItemData(),
+                        listing.getPrice(),
+                        now
+                    ));
+                }
+            }
+        });
+    }
+  }
+  
+  private Timestamp getTransactionDate(Connection connection, long transactionId, Timestamp fallback) throws SQLException {
+    try (PreparedStatement stmt = connection.prepareStatement(
+            "SELECT transaction_date_utc FROM marketplace_transactions WHERE transaction_id = ?")) {
+        stmt.setLong(1, transactionId);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getTimestamp(1) : fallback;
+        }
     }
   }
   
@@ -71,7 +219,7 @@ public class TransactionHistoryDatabase extends Database {
   public MarketplaceTransaction getTransactionById(long transactionId) throws SQLException {
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_transactions WHERE transaction_id = ?")) {
+            SELECT_TRANSACTIONS + "WHERE transaction_id = ?")) {
         
         stmt.setLong(1, transactionId);
         
@@ -90,13 +238,14 @@ public class TransactionHistoryDatabase extends Database {
    */
   public List<MarketplaceTransaction> getTransactionsBySeller(UUID sellerUuid) throws SQLException {
     List<MarketplaceTransaction> transactions = new ArrayList<>();
+    boolean binary = binaryUuidReads;
     
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_transactions WHERE seller_uuid = ? " +
+            SELECT_TRANSACTIONS + "WHERE " + playerColumn("seller", binary) + " = ? " +
             "ORDER BY transaction_date_utc DESC")) {
         
-        stmt.setString(1, sellerUuid.toString());
+        bindPlayer(stmt, 1, sellerUuid, binary);
         
         try (ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
@@ -113,13 +262,66 @@ public class TransactionHistoryDatabase extends Database {
    */
   public List<MarketplaceTransaction> getTransactionsByBuyer(UUID buyerUuid) throws SQLException {
     List<MarketplaceTransaction> transactions = new ArrayList<>();
+    boolean binary = binaryUuidReads;
     
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_transactions WHERE buyer_uuid = ? " +
+            SELECT_TRANSACTIONS + "WHERE " + playerColumn("buyer", binary) + " = ? " +
             "ORDER BY transaction_date_utc DESC")) {
         
-        stmt.setString(1, buyerUuid.toString());
+        bindPlayer(stmt, 1, buyerUuid, binary);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                transactions.add(MarketplaceTransaction.deserialize(rs));
+            }
+        }
+    }
+    
+    return transactions;
+  }
+  
+  /**
+   * Get one page of a seller's transactions, newest first
+   *
+   * @param after The cursor of the last transaction on the previous page, or null for the first page
+   */
+  public List<MarketplaceTransaction> getTransactionsBySeller(UUID sellerUuid, TransactionCursor after, int limit) throws SQLException {
+    return getTransactionPage("seller", sellerUuid, after, limit);
+  }
+  
+  /**
+   * Get one page of a buyer's transactions, newest first
+   *
+   * @param after The cursor of the last transaction on the previous page, or null for the first page
+   */
+  public List<MarketplaceTransaction> getTransactionsByBuyer(UUID buyerUuid, TransactionCursor after, int limit) throws SQLException {
+    return getTransactionPage("buyer", buyerUuid, after, limit);
+  }
+  
+  /**
+   * Keyset paginate a player's transactions on (transaction_date_utc, transaction_id)
+   * so every page is an index range scan regardless of how deep it is
+   */
+  private List<MarketplaceTransaction> getTransactionPage(String role, UUID playerUuid,
+                                                          TransactionCursor after, int limit) throws SQLException {
+    boolean binary = binaryUuidReads;
+    String sql = SELECT_TRANSACTIONS + "WHERE " + playerColumn(role, binary) + " = ? " +
+        (after == null ? "" : "AND (transaction_date_utc < ? OR (transaction_date_utc = ? AND transaction_id < ?)) ") +
+        "ORDER BY transaction_date_utc DESC, transaction_id DESC LIMIT ?";
+    List<MarketplaceTransaction> transactions = new ArrayList<>(limit);
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(sql)) {
+        
+        int index = 1;
+        bindPlayer(stmt, index++, playerUuid, binary);
+        if (after != null) {
+            stmt.setTimestamp(index++, after.transactionDateUtc());
+            stmt.setTimestamp(index++, after.transactionDateUtc());
+            stmt.setLong(index++, after.transactionId());
+        }
+        stmt.setInt(index, limit);
         
         try (ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
@@ -131,6 +333,183 @@ public class TransactionHistoryDatabase extends Database {
     return transactions;
   }
   
+  /**
+   * Get the highest transaction id, 0 if there are no transactions
+   */
+  public long getMaxTransactionId() throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT COALESCE(MAX(transaction_id), 0) FROM marketplace_transactions");
+         ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+  
+  /**
+   * Fill the binary seller and buyer ids of the transactions with ids in
+   * (afterId, toId] that do not have them yet
+   *
+   * @return The number of transactions updated
+   */
+  public int backfillBinaryUuids(long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "UPDATE marketplace_transactions SET " +
+            "seller_uuid_bin = UNHEX(REPLACE(seller_uuid, '-', '')), " +
+            "buyer_uuid_bin = UNHEX(REPLACE(buyer_uuid, '-', '')) " +
+            "WHERE transaction_id > ? AND transaction_id <= ? " +
+            "AND (seller_uuid_bin IS NULL OR buyer_uuid_bin IS NULL)")) {
+        
+        stmt.setLong(1, afterId);
+        stmt.setLong(2, toId);
+        return stmt.executeUpdate();
+    }
+  }
+  
+  /**
+   * Move the inline item payloads of the transactions with ids in (afterId, toId]
+   * into the blob table, hashing on the server
+   *
+   * @return The number of transactions migrated
+   */
+  public int migrateItemBlobs(long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection()) {
+        return DatabaseTransactions.inTransaction(connection, conn -> {
+            try (PreparedStatement store = conn.prepareStatement(
+                    "INSERT IGNORE INTO marketplace_item_blobs (item_hash, item_data) " +
+                    "SELECT UNHEX(SHA2(item_data, 256)), item_data FROM marketplace_transactions " +
+                    "WHERE transaction_id > ? AND transaction_id <= ? AND item_hash IS NULL AND item_data IS NOT NULL")) {
+                store.setLong(1, afterId);
+                store.setLong(2, toId);
+                store.executeUpdate();
+            }
+            
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE marketplace_transactions SET item_hash = UNHEX(SHA2(item_data, 256)), item_data = NULL " +
+                    "WHERE transaction_id > ? AND transaction_id <= ? AND item_hash IS NULL AND item_data IS NOT NULL")) {
+                update.setLong(1, afterId);
+                update.setLong(2, toId);
+                return update.executeUpdate();
+            }
+        });
+    }
+  }
+  
+  /**
+   * Get the id of the first transaction at or after a time
+   *
+   * @return The id, or Long.MAX_VALUE if there is no such transaction
+   */
+  public long getFirstTransactionIdSince(Timestamp since) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT MIN(transaction_id) FROM marketplace_transactions WHERE transaction_date_utc >= ?")) {
+        
+        stmt.setTimestamp(1, since);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                long transactionId = rs.getLong(1);
+                if (!rs.wasNull()) return transactionId;
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+  }
+  
+  /**
+   * Read one keyset chunk of the prices transactions with ids in (afterId, maxId]
+   * sold at, without their items. Transactions the item metadata backfill has
+   * not reached yet have no signature and are left out.
+   */
+  public List<PriceSample> getPriceSamples(long afterId, long maxId, int limit) throws SQLException {
+    List<PriceSample> samples = new ArrayList<>(limit);
+    
+    try (Connection connection = pool.getConnection();
+         PreparedStatement stmt = connection.prepareStatement(
+            "SELECT transaction_id, amount, item_signature, price, transaction_date_utc FROM marketplace_transactions " +
+            "WHERE transaction_id > ? AND transaction_id <= ? AND item_signature IS NOT NULL " +
+            "ORDER BY transaction_id LIMIT ?")) {
+        
+        stmt.setLong(1, afterId);
+        stmt.setLong(2, maxId);
+        stmt.setInt(3, limit);
+        stmt.setFetchSize(limit);
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                samples.add(new PriceSample(rs.getLong("transaction_id"), rs.getString("item_signature"),
+                    rs.getInt("amount"), rs.getBigDecimal("price"), rs.getTimestamp("transaction_date_utc")));
+            }
+        }
+    }
+    
+    return samples;
+  }
+  
+  /**
+   * Fill the material, amount and item signature of the transactions with ids
+   * in (afterId, maxId] recorded before they were stored, materializing each
+   * item once on the calling thread
+   *
+   * @return The number of transactions filled
+   */
+  public int backfillItemMetadata(long afterId, long toId) throws SQLException {
+    try (Connection connection = pool.getConnection();
+         PreparedStatement select = connection.prepareStatement(
+            "SELECT t.transaction_id, COALESCE(b.item_data, t.item_data) AS legacy_item " +
+            "FROM marketplace_transactions t LEFT JOIN marketplace_item_blobs b ON b.item_hash = t.item_hash " +
+            "WHERE t.transaction_id > ? AND t.transaction_id <= ? " +
+            "AND (t.item_signature IS NULL OR t.material IS NULL OR t.amount IS NULL)");
+         PreparedStatement update = connection.prepareStatement(
+            "UPDATE marketplace_transactions SET material = COALESCE(material, ?), amount = COALESCE(amount, ?), " +
+            "item_signature = COALESCE(item_signature, ?) WHERE transaction_id = ?")) {
+        
+        select.setLong(1, afterId);
+        select.setLong(2, toId);
+        
+        int filled = 0;
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                ItemStack item;
+                try {
+                    item = ItemCodec.deserialize(rs.getBytes("legacy_item"));
+                } catch (IOException e) {
+                    // An unreadable item cannot be described, so the row is left as it is
+                    continue;
+                }
+                
+                update.setString(1, item.getType().name());
+                update.setInt(2, item.getAmount());
+                update.setString(3, ItemSignature.of(item));
+                update.setLong(4, rs.getLong("transaction_id"));
+                update.addBatch();
+                filled++;
+            }
+        }
+        if (filled > 0) {
+            update.executeBatch();
+        }
+        return filled;
+    }
+  }
+  
+  public record PriceSample(long transactionId, String itemSignature, int amount, BigDecimal price,
+                            Timestamp transactionDateUtc) {
+  }
+  
+  private static String playerColumn(String role, boolean binary) {
+    return role + (binary ? "_uuid_bin" : "_uuid");
+  }
+  
+  private static void bindPlayer(PreparedStatement stmt, int index, UUID playerUuid, boolean binary) throws SQLException {
+    if (binary) {
+        stmt.setBytes(index, UuidBytes.toBytes(playerUuid));
+    } else {
+        stmt.setString(index, playerUuid.toString());
+    }
+  }
+  
   /**
    * Get most recent transactions, with limit
    */
@@ -139,7 +518,7 @@ public class TransactionHistoryDatabase extends Database {
     
     try (Connection connection = pool.getConnection();
          PreparedStatement stmt = connection.prepareStatement(
-            "SELECT * FROM marketplace_transactions " +
+            SELECT_TRANSACTIONS +
             "ORDER BY transaction_date_utc DESC LIMIT ?")) {
         
         stmt.setInt(1, limit);
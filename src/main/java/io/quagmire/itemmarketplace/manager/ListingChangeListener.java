@@ -0,0 +1,16 @@
+package io.quagmire.itemmarketplace.manager;
+
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+
+/**
+ * Notified when a listing enters or leaves the in-memory listings after the
+ * startup load, whether the change was made on this server or another.
+ * Called on the thread that made the change, so implementations should only
+ * record what needs updating.
+ */
+public interface ListingChangeListener {
+
+    void onListingAdded(MarketplaceListing listing);
+
+    void onListingRemoved(MarketplaceListing listing);
+}
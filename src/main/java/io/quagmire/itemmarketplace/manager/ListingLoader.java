@@ -0,0 +1,141 @@
+package io.quagmire.itemmarketplace.manager;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.ListingsDatabase;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the active listings off the main thread. The id space is split into
+ * ranges that a pool of workers reads in keyset chunks, each worker decoding
+ * its own rows and publishing every chunk into the manager as soon as it is
+ * read, so listings appear progressively while the load runs.
+ */
+public class ListingLoader {
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int PROGRESS_STEPS = 10;
+
+    private final ItemMarketplacePlugin plugin;
+    private final ListingManager manager;
+    private final int threads;
+    private final int chunkSize;
+
+    private final AtomicLong loadedCount = new AtomicLong();
+    private final AtomicLong loadedBytes = new AtomicLong();
+    private final AtomicInteger reportedStep = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    public ListingLoader(ItemMarketplacePlugin plugin, ListingManager manager) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.threads = Math.max(1, plugin.getConfig().getInt("listings.load-threads", Runtime.getRuntime().availableProcessors()));
+        this.chunkSize = Math.max(1, plugin.getConfig().getInt("listings.load-chunk-size", 1000));
+    }
+
+    /**
+     * Start loading every active listing
+     *
+     * @return Completes with the number of listings loaded
+     */
+    public CompletableFuture<Long> load() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ItemMarketplace-Loader-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ListingsDatabase db = plugin.getDatabaseCollection().getListingsDatabase();
+        return CompletableFuture
+            .supplyAsync(() -> {
+                try {
+                    return db.getActiveListingRange();
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor)
+            .thenCompose(range -> loadRanges(db, range))
+            .whenComplete((count, error) -> executor.shutdown());
+    }
+
+    /**
+     * Stop a load that is still running
+     */
+    public void cancel() {
+        ExecutorService running = executor;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<Long> loadRanges(ListingsDatabase db, ListingsDatabase.ActiveListingRange range) {
+        if (range.count() == 0) {
+            return CompletableFuture.completedFuture(0L);
+        }
+
+        plugin.getLogger().info("Loading " + range.count() + " active listings with " + threads + " threads");
+
+        long span = range.maxId() - range.minId() + 1;
+        int rangeCount = (int) Math.min(span, (long) threads * RANGES_PER_THREAD);
+        long rangeSize = (span + rangeCount - 1) / rangeCount;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(rangeCount);
+        for (long start = range.minId() - 1; start < range.maxId(); start += rangeSize) {
+            long afterId = start;
+            long maxId = Math.min(start + rangeSize, range.maxId());
+            futures.add(CompletableFuture.runAsync(() -> loadRange(db, afterId, maxId, range.count()), executor));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                plugin.getLogger().info("Read " + (loadedBytes.get() / 1024) + " KB of stored item data");
+                return loadedCount.get();
+            });
+    }
+
+    /**
+     * Read the ids in (afterId, maxId] chunk by chunk, publishing each chunk
+     */
+    private void loadRange(ListingsDatabase db, long afterId, long maxId, long total) {
+        long cursor = afterId;
+        while (cursor < maxId) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CompletionException(new InterruptedException("Listing load cancelled"));
+            }
+
+            List<MarketplaceListing> chunk;
+            try {
+                chunk = db.getActiveListings(cursor, maxId, chunkSize);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+            if (chunk.isEmpty()) return;
+
+            manager.addListings(chunk);
+            for (MarketplaceListing listing : chunk) {
+                loadedBytes.addAndGet(listing.getItemData().length);
+            }
+            reportProgress(loadedCount.addAndGet(chunk.size()), total);
+
+            if (chunk.size() < chunkSize) return;
+            cursor = chunk.get(chunk.size() - 1).getListingId();
+        }
+    }
+
+    private void reportProgress(long loaded, long total) {
+        int step = (int) Math.min(PROGRESS_STEPS, loaded * PROGRESS_STEPS / total);
+        int reported = reportedStep.get();
+        if (step > reported && step < PROGRESS_STEPS && reportedStep.compareAndSet(reported, step)) {
+            plugin.getLogger().info("Loaded " + loaded + "/" + total + " active listings (" + (step * 100 / PROGRESS_STEPS) + "%)");
+        }
+    }
+}
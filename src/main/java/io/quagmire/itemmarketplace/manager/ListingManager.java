@@ -1,10 +1,23 @@
 package io.quagmire.itemmarketplace.manager;
 
 import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.PersistenceWorker;
 import io.quagmire.itemmarketplace.databases.implementations.ListingsDatabase;
 import io.quagmire.itemmarketplace.databases.implementations.TransactionHistoryDatabase;
+import io.quagmire.itemmarketplace.manager.browse.DatabaseListingBrowser;
+import io.quagmire.itemmarketplace.manager.bus.ListingChange;
+import io.quagmire.itemmarketplace.manager.bus.ListingEventBus;
+import io.quagmire.itemmarketplace.manager.bus.LoopbackEventBus;
+import io.quagmire.itemmarketplace.manager.bus.MysqlEventBus;
+import io.quagmire.itemmarketplace.manager.expiry.ListingExpiryQueue;
+import io.quagmire.itemmarketplace.manager.index.SearchIndex;
+import io.quagmire.itemmarketplace.manager.index.SearchTokenizer;
+import io.quagmire.itemmarketplace.manager.index.SellerListingIndex;
+import io.quagmire.itemmarketplace.manager.index.SortedListingIndex;
+import io.quagmire.itemmarketplace.manager.stats.PriceStatsEngine;
 import io.quagmire.itemmarketplace.model.MarketplaceListing;
 import io.quagmire.itemmarketplace.model.MarketplaceTransaction;
+import io.quagmire.itemmarketplace.sort.ListingSortType;
 import lombok.Getter;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -14,102 +27,374 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ListingManager {
     private final ConcurrentHashMap<Long, MarketplaceListing> activeListings = new ConcurrentHashMap<>();
+    private final SortedListingIndex sortedListings = new SortedListingIndex();
+    private final SellerListingIndex sellerListings = new SellerListingIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ListingExpiryQueue expiryQueue = new ListingExpiryQueue();
+    
+    // Listings claimed here whose purchase or cancel is still being written
+    private final Set<Long> pendingWrites = ConcurrentHashMap.newKeySet();
+    
+    private final List<ListingChangeListener> changeListeners = new CopyOnWriteArrayList<>();
     
     @Getter private final ItemMarketplacePlugin plugin;
+    private final ListingLoader loader;
+    private final ListingSync sync;
+    private final ListingEventBus eventBus;
+    
+    // Whether the startup load has finished
+    @Getter private volatile boolean loaded;
+    
+    // Whether the startup load failed, leaving only part of the catalog in memory
+    @Getter private volatile boolean loadFailed;
+    
+    // Whether listings are browsed from the database instead of being held in memory
+    @Getter private final boolean databaseBrowse;
+    @Getter private final DatabaseListingBrowser browser;
+    
+    @Getter private final PriceStatsEngine priceStats;
+    
+    // When the queue cannot be trusted, the database is swept at this slower interval
+    private final long expirySweepMillis;
+    private volatile long lastExpirySweep;
     
     public ListingManager(ItemMarketplacePlugin plugin) {
         this.plugin = plugin;
+        this.loader = new ListingLoader(plugin, this);
+        this.sync = new ListingSync(plugin, this);
+        this.eventBus = "loopback".equalsIgnoreCase(plugin.getConfig().getString("bus.transport", "mysql")) ?
+            new LoopbackEventBus(plugin) : new MysqlEventBus(plugin);
+        this.databaseBrowse = "database".equalsIgnoreCase(plugin.getConfig().getString("browse.mode", "memory"));
+        this.browser = new DatabaseListingBrowser(plugin, this, plugin.getConfig().getInt("browse.page-size", 45));
+        this.priceStats = new PriceStatsEngine(plugin);
+        this.expirySweepMillis = Math.max(1L, plugin.getConfig().getLong("listings.expiry-sweep-interval-seconds", 60L)) * 1000L;
     }
     
     /**
      * Initialize the manager by loading all active listings from the database
+     * in the background. Listings become visible chunk by chunk while the load
+     * runs. Once it finishes, changes made by other servers since the load
+     * started are synced in continuously, while the event bus applies their
+     * changes as soon as they are announced. If the load fails the manager
+     * stays in a failed state rather than passing off a partial catalog as
+     * complete.
+     * 
+     * @return Completes with the number of listings loaded
+     */
+    public CompletableFuture<Long> initialize() {
+        eventBus.subscribe(this::applyRemoteChanges);
+        eventBus.start();
+        
+        // Nothing is held in memory when browsing from the database
+        if (databaseBrowse) {
+            loaded = true;
+            return CompletableFuture.completedFuture(0L);
+        }
+        
+        // Start a little early so writes committed while the load began are not missed,
+        // taking the mark from the database clock that stamps the rows
+        int overlapSeconds = Math.max(0, plugin.getConfig().getInt("sync.start-overlap-seconds", 5));
+        return queryAsync(() -> plugin.getDatabaseCollection().getListingsDatabase().getUtcTimestamp(overlapSeconds))
+            .thenCompose(syncFrom -> loader.load().thenApply(count -> {
+                loaded = true;
+                sync.start(syncFrom);
+                return count;
+            }))
+            .whenComplete((count, error) -> {
+                if (error != null) {
+                    loadFailed = true;
+                }
+            });
+    }
+    
+    /**
+     * Run a read query on an async thread
+     */
+    public <T> CompletableFuture<T> queryAsync(PersistenceWorker.SqlTask<T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        plugin.getScheduler().runAsync(task -> {
+            try {
+                future.complete(query.run());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Stop a startup load that is still running, the change sync and the event bus
+     */
+    public void shutdown() {
+        loader.cancel();
+        sync.stop();
+        eventBus.close();
+    }
+    
+    /**
+     * Be told about listings entering or leaving memory once the startup load
+     * has finished
+     */
+    public void addChangeListener(ListingChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Publish a chunk of listings read by the loader
      */
-    public void initialize() throws SQLException {
-        List<MarketplaceListing> listings = plugin.getDatabaseCollection().getListingsDatabase().getAllActiveListings();
+    void addListings(Collection<MarketplaceListing> listings) {
         for (MarketplaceListing listing : listings) {
-            activeListings.put(listing.getListingId(), listing);
+            addListing(listing);
+        }
+    }
+    
+    /**
+     * Apply a listing row read from the database, possibly changed on another
+     * server. Rows no newer than the copy held are ignored so replays are
+     * harmless, and listings with a purchase or cancel of their own still
+     * being written here are left to that write.
+     * 
+     * @return True if the listings in memory changed
+     */
+    boolean applyChange(MarketplaceListing row) {
+        long listingId = row.getListingId();
+        if (pendingWrites.contains(listingId)) {
+            return false;
+        }
+        
+        // Listings are never reactivated, so a deactivated row always wins
+        if (!row.isActive() || isExpired(row, System.currentTimeMillis())) {
+            return removeListing(listingId) != null;
+        }
+        MarketplaceListing current = activeListings.get(listingId);
+        if (current != null && !row.getLastUpdateDateUtc().after(current.getLastUpdateDateUtc())) {
+            return false;
+        }
+        
+        addListing(row);
+        return true;
+    }
+    
+    /**
+     * Apply a batch of changes announced by other servers. Removals are applied
+     * straight away; created listings newer than the copy held are read in one
+     * query, and anything that read misses is left to the change sync. Open
+     * menus hear about the results through the change listeners.
+     */
+    private void applyRemoteChanges(List<ListingChange> changes) {
+        // Sales settled elsewhere reach the price statistics through the transactions table
+        if (changes.stream().anyMatch(change -> change.type() == ListingChange.Type.PURCHASED)) {
+            queryAsync(priceStats::catchUp);
+        }
+        
+        if (databaseBrowse) {
+            browser.invalidate();
+            return;
         }
+        
+        Set<Long> created = new HashSet<>();
+        for (ListingChange change : changes) {
+            if (change.type().isRemoval()) {
+                removeListing(change.listingId());
+                created.remove(change.listingId());
+                continue;
+            }
+            
+            MarketplaceListing current = activeListings.get(change.listingId());
+            if (current == null || current.getLastUpdateDateUtc().getTime() < change.version()) {
+                created.add(change.listingId());
+            }
+        }
+        if (created.isEmpty()) {
+            return;
+        }
+        
+        queryAsync(() -> plugin.getDatabaseCollection().getListingsDatabase().getListingsByIds(created))
+            .whenComplete((rows, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Failed to read " + created.size() + " announced listings: " + error.getMessage());
+                    return;
+                }
+                for (MarketplaceListing row : rows) {
+                    applyChange(row);
+                }
+            });
+    }
+    
+    /**
+     * Announce a change made on this server to the others
+     */
+    private void publishChange(ListingChange.Type type, MarketplaceListing listing) {
+        publishChange(type, listing.getListingId(), listing.getLastUpdateDateUtc());
+    }
+    
+    private void publishChange(ListingChange.Type type, long listingId, Timestamp version) {
+        eventBus.publish(new ListingChange(listingId, type, version != null ? version.getTime() : 0L));
     }
     
     /**
-     * Create a new listing in both memory and database
+     * Create a new listing in the database, adding it to memory once it has an
+     * ID. When browsing from the database nothing is held in memory, so the
+     * seller's limit is checked against the database on the write thread and
+     * the browser drops its prefetched pages instead.
      * 
      * @param seller The player creating the listing
      * @param item The item to sell
      * @param price The price for the item
      * @param expiryHours Number of hours until expiry (null for no expiry)
-     * @return The created listing
+     * @return Completes with the created listing, or empty if the seller has reached their listing limit
      */
-    public MarketplaceListing createListing(Player seller, ItemStack item, BigDecimal price, Integer expiryHours) throws SQLException {
+    public CompletableFuture<Optional<MarketplaceListing>> createListing(Player seller, ItemStack item, BigDecimal price, Integer expiryHours) {
+        if (!databaseBrowse && hasReachedListingLimit(seller)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        int limit = seller.hasPermission("itemmarket.limit.bypass") ? 0 : getListingLimit();
+        
         Timestamp expiryDate = null;
         if (expiryHours != null) {
             Instant expiry = Instant.now().plusSeconds(expiryHours * 3600L);
             expiryDate = Timestamp.from(expiry);
         }
         
-        MarketplaceListing listing = plugin.getDatabaseCollection().getListingsDatabase().createListing(seller.getUniqueId(), item, price, expiryDate);
-        activeListings.put(listing.getListingId(), listing);
-        return listing;
+        UUID sellerUuid = seller.getUniqueId();
+        Timestamp expiry = expiryDate;
+        return plugin.getPersistenceWorker()
+            .submit(() -> {
+                ListingsDatabase db = plugin.getDatabaseCollection().getListingsDatabase();
+                // Creates run one at a time on the write thread, so the count cannot be raced from this server
+                if (databaseBrowse && limit > 0 && db.countActiveListingsBySeller(sellerUuid) >= limit) {
+                    return null;
+                }
+                return db.createListing(sellerUuid, item, price, expiry);
+            })
+            .thenApply(listing -> {
+                if (listing == null) {
+                    return Optional.empty();
+                }
+                if (databaseBrowse) {
+                    browser.invalidate();
+                } else {
+                    addListing(listing);
+                }
+                publishChange(ListingChange.Type.CREATED, listing);
+                return Optional.of(listing);
+            });
     }
     
     /**
-     * Purchase an item from a listing
+     * Purchase an item from a listing. The buyer first claims the listing with a
+     * compare-and-remove on the active map, so exactly one buyer on this server
+     * wins without a lock; the winner's settlement is written behind in a single
+     * conditional database transaction, which also rejects listings sold on
+     * another server. The listing is restored if the write fails.
      * 
      * @param buyer The player making the purchase
      * @param listingId The ID of the listing to purchase
-     * @return The transaction record if successful
+     * @return Completes with the transaction record if successful
      */
-    public Optional<MarketplaceTransaction> purchaseItem(Player buyer, long listingId) throws SQLException {
+    public CompletableFuture<Optional<MarketplaceTransaction>> purchaseItem(Player buyer, long listingId) {
         MarketplaceListing listing = activeListings.get(listingId);
-        if (listing == null || !listing.isActive()) {
-            return Optional.empty();
+        if (listing == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return purchaseItem(buyer, listing);
+    }
+    
+    /**
+     * Purchase a listing the caller already holds. When browsing from the
+     * database nothing is claimed in memory and the conditional settlement
+     * alone decides the winner.
+     */
+    public CompletableFuture<Optional<MarketplaceTransaction>> purchaseItem(Player buyer, MarketplaceListing listing) {
+        if (!listing.isActive() || isExpired(listing, System.currentTimeMillis())) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
         
-        // Process purchase
-        MarketplaceTransaction transaction = plugin.getDatabaseCollection().getTransactionHistoryDatabase().recordTransaction(
-            listing.getListingId(),
-            listing.getSellerUuid(),
-            buyer.getUniqueId(),
-            listing.getItemStack(),
-            listing.getPrice()
-        );
-        
-        // Update or remove the listing depending on item amount
-        activeListings.remove(listingId);
-        plugin.getDatabaseCollection().getListingsDatabase().deactivateListing(listingId);
+        // Another buyer claimed it first
+        boolean held = !databaseBrowse;
+        if (held && !claimListing(listing)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
         
-        return Optional.of(transaction);
+        UUID buyerUuid = buyer.getUniqueId();
+        return plugin.getPersistenceWorker()
+            .submit(() -> plugin.getDatabaseCollection().getTransactionHistoryDatabase().settlePurchase(listing, buyerUuid))
+            .handle((transaction, error) -> {
+                if (held) pendingWrites.remove(listing.getListingId());
+                if (error != null) {
+                    if (held) addListing(listing);
+                    throw new CompletionException(error);
+                }
+                if (!held) browser.invalidate();
+                transaction.ifPresent(tx -> {
+                    priceStats.recordSale(listing, tx);
+                    publishChange(ListingChange.Type.PURCHASED, listing);
+                });
+                return transaction;
+            });
     }
     
     /**
-     * Cancel a listing by its ID
+     * Cancel a listing by its ID. The listing leaves memory immediately and is
+     * restored if the deactivation cannot be written.
      * 
      * @param listingId The ID of the listing to cancel
      * @param playerUuid The UUID of the player attempting to cancel
-     * @return True if canceled successfully
+     * @return Completes with true if canceled successfully
      */
-    public boolean cancelListing(long listingId, UUID playerUuid) throws SQLException {
+    public CompletableFuture<Boolean> cancelListing(long listingId, UUID playerUuid) {
         MarketplaceListing listing = activeListings.get(listingId);
-        if (listing == null || !listing.isActive()) {
-            return false;
+        if (listing == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return cancelListing(listing, playerUuid);
+    }
+    
+    /**
+     * Cancel a listing the caller already holds. When browsing from the
+     * database nothing is claimed in memory and the conditional deactivation
+     * alone decides whether the cancel won.
+     */
+    public CompletableFuture<Boolean> cancelListing(MarketplaceListing listing, UUID playerUuid) {
+        if (!listing.isActive()) {
+            return CompletableFuture.completedFuture(false);
         }
         
         // Only the seller can cancel their listing
         if (!listing.getSellerUuid().equals(playerUuid)) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         
-        activeListings.remove(listingId);
-        plugin.getDatabaseCollection().getListingsDatabase().deactivateListing(listingId);
-        return true;
+        boolean held = !databaseBrowse;
+        if (held && !claimListing(listing)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // The listing may already have been deactivated by a purchase elsewhere
+        return plugin.getPersistenceWorker().deactivateListing(listing.getListingId()).handle((deactivated, error) -> {
+            if (held) pendingWrites.remove(listing.getListingId());
+            if (error != null) {
+                if (held) addListing(listing);
+                throw new CompletionException(error);
+            }
+            if (!held) browser.invalidate();
+            if (Boolean.TRUE.equals(deactivated)) publishChange(ListingChange.Type.CANCELLED, listing);
+            return deactivated;
+        });
     }
     
     /**
@@ -120,30 +405,143 @@ public class ListingManager {
     }
     
     /**
-     * Get listings by seller
+     * Get an active listing by its ID
+     * 
+     * @return The listing, or null if it is not active
+     */
+    public MarketplaceListing getListing(long listingId) {
+        return activeListings.get(listingId);
+    }
+    
+    /**
+     * Get the number of active listings
+     */
+    public int getListingCount() {
+        return activeListings.size();
+    }
+    
+    /**
+     * Get a single page of active listings in the requested order without
+     * copying or sorting the rest of the catalog
+     * 
+     * @param sortType The order of the listings
+     * @param offset Number of listings to skip
+     * @param limit Maximum number of listings to return
+     * @return The listings on the requested page
+     */
+    public List<MarketplaceListing> page(ListingSortType sortType, int offset, int limit) {
+        return sortedListings.page(sortType, offset, limit);
+    }
+    
+    /**
+     * Get listings by seller, newest first, reading them from the database when
+     * they are not held in memory
+     */
+    public CompletableFuture<List<MarketplaceListing>> fetchListingsBySeller(UUID sellerUuid) {
+        if (!databaseBrowse) {
+            return CompletableFuture.completedFuture(getListingsBySeller(sellerUuid));
+        }
+        return queryAsync(() -> {
+            List<MarketplaceListing> listings = plugin.getDatabaseCollection().getListingsDatabase().getListingsBySeller(sellerUuid);
+            listings.sort(SortedListingIndex.comparator(ListingSortType.NEWEST));
+            return listings;
+        });
+    }
+    
+    /**
+     * Get listings by seller, newest first
      */
     public List<MarketplaceListing> getListingsBySeller(UUID sellerUuid) {
-        return activeListings.values().stream()
-            .filter(listing -> listing.getSellerUuid().equals(sellerUuid))
-            .collect(Collectors.toList());
+        List<MarketplaceListing> listings = new ArrayList<>();
+        for (Long listingId : sellerListings.getListingIds(sellerUuid)) {
+            MarketplaceListing listing = activeListings.get(listingId);
+            if (listing != null) {
+                listings.add(listing);
+            }
+        }
+        listings.sort(Comparator.comparing(MarketplaceListing::getCreateDateUtc).reversed());
+        return listings;
+    }
+    
+    /**
+     * Get the number of active listings a seller has
+     */
+    public int getListingCount(UUID sellerUuid) {
+        return sellerListings.count(sellerUuid);
+    }
+    
+    /**
+     * Get every seller that has at least one active listing
+     */
+    public Set<UUID> getSellerUuids() {
+        return sellerListings.getSellers();
     }
     
     /**
-     * Clean expired listings
+     * Get the maximum number of active listings a seller may have, 0 meaning unlimited
+     */
+    public int getListingLimit() {
+        return Math.max(0, plugin.getConfig().getInt("listings.max-per-seller", 0));
+    }
+    
+    /**
+     * Check whether a seller may not create another listing, counting the
+     * listings held in memory
+     */
+    public boolean hasReachedListingLimit(Player seller) {
+        int limit = getListingLimit();
+        if (limit == 0 || seller.hasPermission("itemmarket.limit.bypass")) {
+            return false;
+        }
+        return getListingCount(seller.getUniqueId()) >= limit;
+    }
+    
+    /**
+     * Retire listings whose expiry has passed. A listing coming due in the expiry
+     * queue triggers the check; the database is updated in one set-based statement and
+     * any expired ids it reports are removed from memory as well. Expiry is
+     * judged by the database clock. When browsing from the database, or when the
+     * load failed, the queue misses listings, so the database is also swept on a
+     * slower interval, and only locked once a cheap probe finds something to
+     * expire. The sweep also catches anything the queue retired before the
+     * database clock reached it.
      */
     public void cleanExpiredListings() throws SQLException {
-        Timestamp now = Timestamp.from(Instant.now());
-        List<Long> expiredIds = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        ListingsDatabase listingsDatabase = plugin.getDatabaseCollection().getListingsDatabase();
+        if (databaseBrowse || !expiryQueue.hasDue(now)) {
+            if (now - lastExpirySweep < expirySweepMillis) return;
+            lastExpirySweep = now;
+            if (!listingsDatabase.hasExpiredListings()) return;
+        }
         
-        for (MarketplaceListing listing : activeListings.values()) {
-            if (listing.getExpiryDateUtc() != null && listing.getExpiryDateUtc().before(now)) {
-                expiredIds.add(listing.getListingId());
+        Set<Long> expiredIds = expiryQueue.pollDue(now);
+        List<Long> deactivatedIds;
+        try {
+            deactivatedIds = listingsDatabase.expireListings();
+        } catch (SQLException e) {
+            // Put the due listings back so the next check retries them
+            for (Long id : expiredIds) {
+                MarketplaceListing listing = activeListings.get(id);
+                if (listing != null) {
+                    expiryQueue.schedule(listing);
+                }
             }
+            throw e;
         }
+        expiredIds.addAll(deactivatedIds);
         
+        if (databaseBrowse && !deactivatedIds.isEmpty()) {
+            browser.invalidate();
+        }
+        
+        // Only the server whose update deactivated a listing announces it
+        Set<Long> announced = new HashSet<>(deactivatedIds);
         for (Long id : expiredIds) {
-            activeListings.remove(id);
-            plugin.getDatabaseCollection().getListingsDatabase().deactivateListing(id);
+            MarketplaceListing listing = removeListing(id);
+            if (announced.contains(id)) {
+                publishChange(ListingChange.Type.EXPIRED, id, listing != null ? listing.getLastUpdateDateUtc() : null);
+            }
         }
     }
     
@@ -151,15 +549,139 @@ public class ListingManager {
      * Find listings that match a search term
      */
     public List<MarketplaceListing> searchListings(String searchTerm) {
-        String lowercaseSearch = searchTerm.toLowerCase();
-        return activeListings.values().stream()
-            .filter(listing -> {
-                String itemName = listing.getItemStack().getItemMeta() != null && 
-                                listing.getItemStack().getItemMeta().hasDisplayName() ? 
-                                listing.getItemStack().getItemMeta().getDisplayName().toLowerCase() : 
-                                listing.getItemStack().getType().name().toLowerCase();
-                return itemName.contains(lowercaseSearch);
-            })
-            .collect(Collectors.toList());
+        List<MarketplaceListing> listings = new ArrayList<>();
+        for (Long listingId : searchIndex.search(searchTerm)) {
+            MarketplaceListing listing = activeListings.get(listingId);
+            if (listing != null) {
+                listings.add(listing);
+            }
+        }
+        return listings;
+    }
+    
+    /**
+     * Find listings that match a search term in the requested order
+     */
+    public List<MarketplaceListing> searchListings(String searchTerm, ListingSortType sortType) {
+        List<MarketplaceListing> listings = searchListings(searchTerm);
+        listings.sort(SortedListingIndex.comparator(sortType));
+        return listings;
+    }
+    
+    /**
+     * Complete a partially typed search term from the indexed vocabulary
+     */
+    public List<String> completeSearchTerm(String prefix, int limit) {
+        return searchIndex.complete(prefix, limit);
+    }
+    
+    /**
+     * Add a listing to the active map and every index. The indexes are updated
+     * inside the map's compute for the listing id, so concurrent changes to the
+     * same listing from the loader, sync, bus and write callbacks are applied
+     * one at a time and the indexes never disagree with the map.
+     */
+    private void addListing(MarketplaceListing listing) {
+        activeListings.compute(listing.getListingId(), (listingId, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            sortedListings.add(listing);
+            sellerListings.add(listing);
+            expiryQueue.schedule(listing);
+            searchIndex.add(listingId, getSearchKeywords(listing));
+            priceStats.addListing(listing);
+            return listing;
+        });
+        
+        // The startup load would otherwise notify once per listing
+        if (loaded) {
+            for (ListingChangeListener listener : changeListeners) {
+                listener.onListingAdded(listing);
+            }
+        }
+    }
+    
+    /**
+     * Get the search terms of a listing from its stored keywords, only
+     * materializing the item for rows written before keywords were stored
+     */
+    private static Set<String> getSearchKeywords(MarketplaceListing listing) {
+        if (listing.getSearchKeywords() != null) {
+            return SearchTokenizer.split(listing.getSearchKeywords());
+        }
+        return SearchTokenizer.keywords(listing.getItemStack());
+    }
+    
+    /**
+     * Remove a listing from the active map and every index
+     * 
+     * @return The removed listing, or null if it was not active
+     */
+    private MarketplaceListing removeListing(long listingId) {
+        MarketplaceListing[] removed = new MarketplaceListing[1];
+        activeListings.computeIfPresent(listingId, (id, listing) -> {
+            unindex(listing);
+            removed[0] = listing;
+            return null;
+        });
+        
+        if (removed[0] != null) {
+            notifyRemoved(removed[0]);
+        }
+        return removed[0];
+    }
+    
+    /**
+     * Atomically remove exactly this listing instance from the active map. Only
+     * one caller can succeed for a given listing, and the caller must clear the
+     * pending write once its database write completes. The id is marked pending
+     * before the removal so a sync or bus update arriving in between cannot
+     * re-add the listing.
+     * 
+     * @return True if this caller removed the listing
+     */
+    private boolean claimListing(MarketplaceListing listing) {
+        boolean marked = pendingWrites.add(listing.getListingId());
+        boolean[] claimed = new boolean[1];
+        activeListings.computeIfPresent(listing.getListingId(), (listingId, current) -> {
+            if (current != listing) {
+                return current;
+            }
+            unindex(current);
+            claimed[0] = true;
+            return null;
+        });
+        if (!claimed[0]) {
+            // Only clear the mark if it was ours, another claim may still be writing
+            if (marked) pendingWrites.remove(listing.getListingId());
+            return false;
+        }
+        
+        notifyRemoved(listing);
+        return true;
+    }
+    
+    /**
+     * Remove a listing from every index, called inside the map's compute for its id
+     */
+    private void unindex(MarketplaceListing listing) {
+        sortedListings.remove(listing);
+        sellerListings.remove(listing);
+        searchIndex.remove(listing.getListingId());
+        expiryQueue.cancel(listing);
+        priceStats.removeListing(listing);
+    }
+    
+    private void notifyRemoved(MarketplaceListing listing) {
+        plugin.getListingItemRenderer().invalidate(listing.getListingId());
+        
+        for (ListingChangeListener listener : changeListeners) {
+            listener.onListingRemoved(listing);
+        }
+    }
+    
+    private static boolean isExpired(MarketplaceListing listing, long nowMillis) {
+        return listing.getExpiryDateUtc() != null && listing.getExpiryDateUtc().getTime() <= nowMillis;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,112 @@
+package io.quagmire.itemmarketplace.manager;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.ListingsDatabase;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Keeps the in-memory listings in step with changes written by other servers.
+ * It polls the rows changed since a high-water mark of
+ * (last_update_date_utc, listing_id) and applies them to the manager, so the
+ * cost of a poll follows the change rate rather than the catalog size. The
+ * poll interval drops to the minimum while changes arrive and doubles up to
+ * the maximum while the marketplace is quiet.
+ */
+public class ListingSync {
+    private final ItemMarketplacePlugin plugin;
+    private final ListingManager manager;
+    private final int batchSize;
+    private final int lagSeconds;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+
+    private Timestamp markUpdate;
+    private long markId;
+
+    private volatile boolean stopped;
+    private Thread thread;
+
+    public ListingSync(ItemMarketplacePlugin plugin, ListingManager manager) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("sync.batch-size", 500));
+        this.lagSeconds = Math.max(1, plugin.getConfig().getInt("sync.lag-seconds", 2));
+        this.minIntervalMillis = Math.max(100L, plugin.getConfig().getLong("sync.min-interval-millis", 1000L));
+        this.maxIntervalMillis = Math.max(minIntervalMillis, plugin.getConfig().getLong("sync.max-interval-millis", 10000L));
+    }
+
+    /**
+     * Start polling for changes made since the given time. Changes that are
+     * already in memory are applied again harmlessly, so the start may overlap
+     * the load.
+     */
+    public void start(Timestamp since) {
+        markUpdate = since;
+        markId = 0L;
+
+        thread = new Thread(this::run, "ItemMarketplace-Sync");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        long interval = minIntervalMillis;
+
+        while (!stopped) {
+            int changes;
+            try {
+                changes = poll();
+            } catch (SQLException e) {
+                if (stopped) return;
+                plugin.getLogger().severe("Failed to sync listing changes: " + e.getMessage());
+                changes = 0;
+            }
+
+            // A full batch means more changes are waiting
+            if (changes >= batchSize) {
+                interval = minIntervalMillis;
+                continue;
+            }
+            interval = changes > 0 ? minIntervalMillis : Math.min(maxIntervalMillis, interval * 2);
+
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply one batch of changes and advance the mark past it
+     *
+     * @return The number of changed rows read
+     */
+    private int poll() throws SQLException {
+        ListingsDatabase db = plugin.getDatabaseCollection().getListingsDatabase();
+        List<MarketplaceListing> rows = db.getChangedListings(markUpdate, markId, lagSeconds, batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        for (MarketplaceListing row : rows) {
+            manager.applyChange(row);
+        }
+
+        MarketplaceListing last = rows.get(rows.size() - 1);
+        markUpdate = last.getLastUpdateDateUtc();
+        markId = last.getListingId();
+        return rows.size();
+    }
+}
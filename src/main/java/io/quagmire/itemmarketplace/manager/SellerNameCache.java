@@ -0,0 +1,175 @@
+package io.quagmire.itemmarketplace.manager;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Seller UUID to name cache used while rendering menus. Lookups never block:
+ * a missing or stale name is queued for resolution on an async thread and the
+ * caller gets null (or the stale name) until it resolves. Every resolved batch
+ * is handed to a callback so open menus can patch the names in. Online players
+ * are written through on join and quit, and only reported when they have
+ * active listings.
+ */
+public class SellerNameCache implements Listener {
+    private static final long DEFAULT_TTL_SECONDS = 3600L;
+    private static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final ItemMarketplacePlugin plugin;
+    private final Map<UUID, CachedName> names;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<UUID> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final SellerNamesResolvedListener listener;
+
+    private volatile long ttlMillis;
+    private volatile int maxSize;
+
+    @FunctionalInterface
+    public interface SellerNamesResolvedListener {
+        void onResolved(Set<UUID> sellerUuids);
+    }
+
+    public SellerNameCache(ItemMarketplacePlugin plugin, SellerNamesResolvedListener listener) {
+        this.plugin = plugin;
+        this.listener = listener;
+
+        reload();
+        names = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedName> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Re-read the TTL and size bound from the config
+     */
+    public void reload() {
+        ttlMillis = Math.max(1L, plugin.getConfig().getLong("seller-names.ttl-seconds", DEFAULT_TTL_SECONDS)) * 1000L;
+        maxSize = Math.max(1, plugin.getConfig().getInt("seller-names.max-size", DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Get a seller's name without blocking
+     *
+     * @return The cached name, "Unknown" if the player has no name on record,
+     * or null if the name is still being resolved
+     */
+    public String getName(UUID sellerUuid) {
+        CachedName cached = names.get(sellerUuid);
+        if (cached == null || cached.isExpired(ttlMillis)) {
+            enqueue(sellerUuid);
+        }
+        if (cached == null) return null;
+        return cached.name() != null ? cached.name() : "Unknown";
+    }
+
+    /**
+     * Queue every seller that is missing or stale for background resolution
+     */
+    public void warm(Collection<UUID> sellerUuids) {
+        for (UUID sellerUuid : sellerUuids) {
+            CachedName cached = names.get(sellerUuid);
+            if ((cached == null || cached.isExpired(ttlMillis)) && pending.add(sellerUuid)) {
+                queue.add(sellerUuid);
+            }
+        }
+        scheduleDrain();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        update(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        update(event.getPlayer());
+    }
+
+    private void update(Player player) {
+        CachedName previous = names.put(player.getUniqueId(), new CachedName(player.getName(), System.currentTimeMillis()));
+        if ((previous == null || !Objects.equals(previous.name(), player.getName())) && isSeller(player.getUniqueId())) {
+            listener.onResolved(Set.of(player.getUniqueId()));
+        }
+    }
+
+    /**
+     * Whether a player may have listings on screen. Listings browsed from the
+     * database are not counted, so every player may have some then.
+     */
+    private boolean isSeller(UUID playerUuid) {
+        ListingManager manager = plugin.getListingManager();
+        return manager != null && (manager.isDatabaseBrowse() || manager.getListingCount(playerUuid) > 0);
+    }
+
+    private void enqueue(UUID sellerUuid) {
+        if (pending.add(sellerUuid)) {
+            queue.add(sellerUuid);
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            plugin.getScheduler().runAsync(task -> drain());
+        }
+    }
+
+    /**
+     * Resolve everything queued, then report the names that changed in one batch
+     */
+    private void drain() {
+        Set<UUID> changed = new HashSet<>();
+        try {
+            UUID sellerUuid;
+            while ((sellerUuid = queue.poll()) != null) {
+                try {
+                    String name = plugin.getServer().getOfflinePlayer(sellerUuid).getName();
+                    CachedName previous = names.put(sellerUuid, new CachedName(name, System.currentTimeMillis()));
+                    if (previous == null || !Objects.equals(previous.name(), name)) {
+                        changed.add(sellerUuid);
+                    }
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Failed to resolve seller name for " + sellerUuid + ": " + e.getMessage());
+                } finally {
+                    pending.remove(sellerUuid);
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        if (!changed.isEmpty()) {
+            listener.onResolved(changed);
+        }
+
+        // Pick up anything queued after the last poll
+        scheduleDrain();
+    }
+
+    private record CachedName(String name, long resolvedAt) {
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - resolvedAt > ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.quagmire.itemmarketplace.manager.browse;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.manager.ListingManager;
+import io.quagmire.itemmarketplace.model.ListingCursor;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import io.quagmire.itemmarketplace.sort.ListingSortType;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Serves listing pages straight from the database with keyset pagination, for
+ * catalogs too large to hold in memory. Fetching a page also starts fetching
+ * the page after it, so paging forward is usually served from the prefetch.
+ */
+public class DatabaseListingBrowser {
+    private static final int MAX_PREFETCHED = 64;
+    private static final long PREFETCH_TTL_MILLIS = 10_000L;
+
+    private final ItemMarketplacePlugin plugin;
+    private final ListingManager manager;
+    private final int pageSize;
+    private final Map<PageKey, Prefetched> prefetched;
+
+    public DatabaseListingBrowser(ItemMarketplacePlugin plugin, ListingManager manager, int pageSize) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.pageSize = pageSize;
+
+        prefetched = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, Prefetched> eldest) {
+                return size() > MAX_PREFETCHED;
+            }
+        });
+    }
+
+    /**
+     * Fetch a page, then prefetch the one after it
+     *
+     * @param sortType The order of the listings
+     * @param after The cursor the page starts after, or null for the first page
+     */
+    public CompletableFuture<ListingPage> fetch(ListingSortType sortType, ListingCursor after) {
+        PageKey key = new PageKey(sortType, after);
+        Prefetched cached = prefetched.remove(key);
+        CompletableFuture<ListingPage> future = cached != null && cached.isUsable() ? cached.page() : load(sortType, after);
+
+        future.thenAccept(page -> {
+            if (page.hasNext()) {
+                prefetched.computeIfAbsent(new PageKey(sortType, page.nextCursor()),
+                    next -> new Prefetched(load(sortType, page.nextCursor()), System.currentTimeMillis()));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Drop every prefetched page, used after a listing on one of them changed
+     */
+    public void invalidate() {
+        prefetched.clear();
+    }
+
+    private CompletableFuture<ListingPage> load(ListingSortType sortType, ListingCursor after) {
+        // One extra row tells whether a next page exists without counting the catalog
+        return manager.queryAsync(() -> plugin.getDatabaseCollection().getListingsDatabase()
+            .getListingPage(sortType, after, pageSize + 1))
+            .thenApply(rows -> {
+                if (rows.size() <= pageSize) {
+                    return new ListingPage(rows, null);
+                }
+                List<MarketplaceListing> listings = rows.subList(0, pageSize);
+                return new ListingPage(List.copyOf(listings), ListingCursor.of(listings.get(pageSize - 1)));
+            });
+    }
+
+    private record PageKey(ListingSortType sortType, ListingCursor after) {
+    }
+
+    private record Prefetched(CompletableFuture<ListingPage> page, long fetchedAt) {
+        boolean isUsable() {
+            return !page.isCompletedExceptionally() && System.currentTimeMillis() - fetchedAt <= PREFETCH_TTL_MILLIS;
+        }
+    }
+}
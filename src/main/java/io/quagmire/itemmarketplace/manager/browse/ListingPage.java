@@ -0,0 +1,20 @@
+package io.quagmire.itemmarketplace.manager.browse;
+
+import io.quagmire.itemmarketplace.model.ListingCursor;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+
+import java.util.List;
+
+/**
+ * One page of listings read from the database
+ *
+ * @param listings The listings on the page
+ * @param nextCursor The cursor the next page starts after, or null if this is the last page
+ */
+public record ListingPage(List<MarketplaceListing> listings, ListingCursor nextCursor) {
+    public static final ListingPage EMPTY = new ListingPage(List.of(), null);
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
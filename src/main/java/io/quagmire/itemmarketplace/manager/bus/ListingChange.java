@@ -0,0 +1,49 @@
+package io.quagmire.itemmarketplace.manager.bus;
+
+/**
+ * A change to one listing, exchanged between servers so they can patch their
+ * in-memory listings without waiting for the change sync
+ *
+ * @param listingId The listing that changed
+ * @param type What happened to it
+ * @param version The last update time, in epoch millis, of the listing the change applies to
+ */
+public record ListingChange(long listingId, Type type, long version) {
+
+    public enum Type {
+        CREATED(1),
+        PURCHASED(2),
+        CANCELLED(3),
+        EXPIRED(4);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        /**
+         * The compact code stored for the type
+         */
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * Whether the listing left the marketplace. Listings are never
+         * reactivated, so a removal is final.
+         */
+        public boolean isRemoval() {
+            return this != CREATED;
+        }
+
+        public static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+}
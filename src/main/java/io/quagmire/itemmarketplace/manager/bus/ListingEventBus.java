@@ -0,0 +1,30 @@
+package io.quagmire.itemmarketplace.manager.bus;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries listing changes between the servers sharing a marketplace database.
+ * Delivery is best effort; the change sync reconciles anything a transport
+ * drops or delivers late.
+ */
+public interface ListingEventBus {
+
+    /**
+     * Queue a change made on this server for the other servers
+     */
+    void publish(ListingChange change);
+
+    /**
+     * Receive batches of changes made on other servers. Subscribers are
+     * called on the transport's own thread.
+     */
+    void subscribe(Consumer<List<ListingChange>> subscriber);
+
+    void start();
+
+    /**
+     * Stop the transport, sending any changes still queued
+     */
+    void close();
+}
@@ -0,0 +1,46 @@
+package io.quagmire.itemmarketplace.manager.bus;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers every published change straight back to the subscribers of this
+ * server, for single server setups and testing
+ */
+public class LoopbackEventBus implements ListingEventBus {
+    private final ItemMarketplacePlugin plugin;
+    private final List<Consumer<List<ListingChange>>> subscribers = new CopyOnWriteArrayList<>();
+
+    public LoopbackEventBus(ItemMarketplacePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void publish(ListingChange change) {
+        List<ListingChange> batch = List.of(change);
+        for (Consumer<List<ListingChange>> subscriber : subscribers) {
+            try {
+                subscriber.accept(batch);
+            } catch (Exception e) {
+                plugin.getLogger().severe("Error handling listing change: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ListingChange>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void close() {
+        subscribers.clear();
+    }
+}
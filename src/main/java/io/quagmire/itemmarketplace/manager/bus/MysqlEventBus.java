@@ -0,0 +1,171 @@
+package io.quagmire.itemmarketplace.manager.bus;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.ListingEventsDatabase;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Exchanges listing changes through a shared events table. Published changes
+ * are queued and written in batches, and every server reads the events added
+ * since the last one it saw, skipping its own. Events are pruned after a
+ * retention period.
+ *
+ * Auto-increment ids can commit out of order, so an event may occasionally be
+ * passed over; the change sync still applies it within a few seconds.
+ */
+public class MysqlEventBus implements ListingEventBus {
+    private static final long PRUNE_INTERVAL_MILLIS = 60_000L;
+    private static final int PRUNE_LIMIT = 10_000;
+
+    private final ItemMarketplacePlugin plugin;
+    private final UUID originId = UUID.randomUUID();
+    private final Queue<ListingChange> outbox = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<List<ListingChange>>> subscribers = new CopyOnWriteArrayList<>();
+    private final long flushMillis;
+    private final long pollMillis;
+    private final int batchSize;
+    private final int retentionSeconds;
+
+    private long lastEventId = -1L;
+    private long lastPoll;
+    private long lastPrune;
+
+    private volatile boolean stopped;
+    private Thread thread;
+
+    public MysqlEventBus(ItemMarketplacePlugin plugin) {
+        this.plugin = plugin;
+        this.flushMillis = Math.max(10L, plugin.getConfig().getLong("bus.flush-millis", 50L));
+        this.pollMillis = Math.max(flushMillis, plugin.getConfig().getLong("bus.poll-millis", 250L));
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("bus.batch-size", 500));
+        this.retentionSeconds = Math.max(60, plugin.getConfig().getInt("bus.retention-seconds", 300));
+    }
+
+    @Override
+    public void publish(ListingChange change) {
+        outbox.add(change);
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ListingChange>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void start() {
+        thread = new Thread(this::run, "ItemMarketplace-EventBus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            flush();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to send " + outbox.size() + " listing changes on shutdown: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        ListingEventsDatabase db = plugin.getDatabaseCollection().getListingEventsDatabase();
+
+        while (!stopped) {
+            try {
+                flush();
+
+                long now = System.currentTimeMillis();
+                if (now - lastPoll >= pollMillis) {
+                    lastPoll = now;
+                    poll(db);
+                }
+                if (now - lastPrune >= PRUNE_INTERVAL_MILLIS) {
+                    lastPrune = now;
+                    db.pruneEvents(retentionSeconds, PRUNE_LIMIT);
+                }
+            } catch (SQLException e) {
+                if (stopped) return;
+                plugin.getLogger().severe("Listing event bus failed: " + e.getMessage());
+            }
+
+            try {
+                Thread.sleep(flushMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write the queued changes in batches. A batch that fails to write is
+     * dropped rather than retried out of order.
+     */
+    private void flush() throws SQLException {
+        ListingEventsDatabase db = plugin.getDatabaseCollection().getListingEventsDatabase();
+        while (!outbox.isEmpty()) {
+            List<ListingChange> batch = new ArrayList<>();
+            ListingChange change;
+            while (batch.size() < batchSize && (change = outbox.poll()) != null) {
+                batch.add(change);
+            }
+            db.insertEvents(originId, batch);
+        }
+    }
+
+    /**
+     * Deliver the events written by other servers since the last poll. The
+     * first poll only finds where the table ends, as the startup load already
+     * covers older changes.
+     */
+    private void poll(ListingEventsDatabase db) throws SQLException {
+        if (lastEventId < 0) {
+            lastEventId = db.getMaxEventId();
+            return;
+        }
+
+        List<ListingEventsDatabase.ListingEvent> events;
+        do {
+            events = db.getEvents(lastEventId, batchSize);
+            if (events.isEmpty()) return;
+            lastEventId = events.get(events.size() - 1).eventId();
+
+            List<ListingChange> changes = new ArrayList<>(events.size());
+            for (ListingEventsDatabase.ListingEvent event : events) {
+                if (event.change() != null && !originId.equals(event.originId())) {
+                    changes.add(event.change());
+                }
+            }
+            if (!changes.isEmpty()) {
+                deliver(changes);
+            }
+        } while (events.size() >= batchSize && !stopped);
+    }
+
+    private void deliver(List<ListingChange> changes) {
+        for (Consumer<List<ListingChange>> subscriber : subscribers) {
+            try {
+                subscriber.accept(changes);
+            } catch (Exception e) {
+                plugin.getLogger().severe("Error handling listing changes: " + e.getMessage());
+            }
+        }
+    }
+}
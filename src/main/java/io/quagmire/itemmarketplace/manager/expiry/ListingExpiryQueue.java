@@ -0,0 +1,71 @@
+package io.quagmire.itemmarketplace.manager.expiry;
+
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Time-bucketed priority queue of listing expiries. Listings are grouped by the
+ * second they expire in, so polling only touches buckets that are already due.
+ * Buckets are changed under the queue's lock so a bucket is dropped as soon as
+ * it empties, while checking for due listings stays lock-free.
+ */
+public class ListingExpiryQueue {
+    private final ConcurrentSkipListMap<Long, Set<Long>> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * Schedule a listing to expire, ignoring listings without an expiry date
+     */
+    public synchronized void schedule(MarketplaceListing listing) {
+        if (listing.getExpiryDateUtc() == null) return;
+
+        buckets.computeIfAbsent(bucket(listing), second -> new HashSet<>())
+            .add(listing.getListingId());
+    }
+
+    /**
+     * Stop tracking a listing that left the marketplace before it expired
+     */
+    public synchronized void cancel(MarketplaceListing listing) {
+        if (listing.getExpiryDateUtc() == null) return;
+
+        long second = bucket(listing);
+        Set<Long> ids = buckets.get(second);
+        if (ids != null && ids.remove(listing.getListingId()) && ids.isEmpty()) {
+            buckets.remove(second);
+        }
+    }
+
+    /**
+     * Check whether any listing is due at the given time without removing it
+     */
+    public boolean hasDue(long nowMillis) {
+        Map.Entry<Long, Set<Long>> first = buckets.firstEntry();
+        return first != null && first.getKey() <= nowMillis / 1000L;
+    }
+
+    /**
+     * Remove and return the ids of every listing that expired at or before the given time
+     */
+    public synchronized Set<Long> pollDue(long nowMillis) {
+        long nowSecond = nowMillis / 1000L;
+        Set<Long> due = new HashSet<>();
+
+        Map.Entry<Long, Set<Long>> first;
+        while ((first = buckets.firstEntry()) != null && first.getKey() <= nowSecond) {
+            buckets.remove(first.getKey());
+            due.addAll(first.getValue());
+        }
+        return due;
+    }
+
+    /**
+     * Listings are retired in the first bucket at or after their expiry instant
+     */
+    private static long bucket(MarketplaceListing listing) {
+        return Math.floorDiv(listing.getExpiryDateUtc().getTime() + 999L, 1000L);
+    }
+}
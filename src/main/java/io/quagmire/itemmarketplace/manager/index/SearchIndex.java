@@ -0,0 +1,100 @@
+package io.quagmire.itemmarketplace.manager.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from search terms to listing ids, maintained as listings come and go
+ */
+public class SearchIndex {
+    private final ConcurrentHashMap<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Collection<String>> listingTerms = new ConcurrentHashMap<>();
+    private final SearchTrie vocabulary = new SearchTrie();
+
+    /**
+     * Index a listing under each of its terms
+     */
+    public void add(long listingId, Collection<String> terms) {
+        Collection<String> previous = listingTerms.put(listingId, terms);
+        if (previous != null) {
+            unindex(listingId, previous);
+        }
+
+        for (String term : terms) {
+            postings.compute(term, (key, ids) -> {
+                if (ids == null) {
+                    ids = ConcurrentHashMap.newKeySet();
+                    vocabulary.insert(key);
+                }
+                ids.add(listingId);
+                return ids;
+            });
+        }
+    }
+
+    /**
+     * Remove a listing from every posting list it appears in
+     */
+    public void remove(long listingId) {
+        Collection<String> terms = listingTerms.remove(listingId);
+        if (terms != null) {
+            unindex(listingId, terms);
+        }
+    }
+
+    private void unindex(long listingId, Collection<String> terms) {
+        for (String term : terms) {
+            postings.computeIfPresent(term, (key, ids) -> {
+                ids.remove(listingId);
+                if (!ids.isEmpty()) return ids;
+
+                vocabulary.remove(key);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Find the listings matching every term of a query. Each query term matches
+     * any indexed term it is a prefix of, and every such term is expanded so a
+     * short prefix never silently drops matches.
+     *
+     * @return The matching listing ids
+     */
+    public Set<Long> search(String query) {
+        List<String> queryTerms = SearchTokenizer.tokenize(query);
+        if (queryTerms.isEmpty()) return Collections.emptySet();
+
+        Set<Long> result = null;
+        for (String queryTerm : queryTerms) {
+            Set<Long> matches = new HashSet<>();
+            for (String term : vocabulary.complete(queryTerm, Integer.MAX_VALUE)) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null) {
+                    matches.addAll(ids);
+                }
+            }
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    /**
+     * Complete a partially typed term from the indexed vocabulary
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> terms = SearchTokenizer.tokenize(prefix);
+        String term = terms.isEmpty() ? "" : terms.get(terms.size() - 1);
+        return vocabulary.complete(term, limit);
+    }
+}
@@ -0,0 +1,102 @@
+package io.quagmire.itemmarketplace.manager.index;
+
+import org.bukkit.ChatColor;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits item names into the lowercase terms used by the search index
+ */
+public final class SearchTokenizer {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Maximum length of the stored keyword column
+     */
+    public static final int MAX_STORED_LENGTH = 1024;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Split text into lowercase alphanumeric terms, ignoring colour codes
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+
+        String stripped = ChatColor.stripColor(text);
+        for (String term : SEPARATOR.split(stripped.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Collect the searchable terms of an item: its display name, material and
+     * enchantment names. The item meta is read once.
+     */
+    public static Set<String> keywords(ItemStack item) {
+        Set<String> keywords = new HashSet<>();
+        if (item == null) return keywords;
+
+        keywords.addAll(tokenize(item.getType().name()));
+
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return keywords;
+
+        if (meta.hasDisplayName()) {
+            keywords.addAll(tokenize(meta.getDisplayName()));
+        }
+        for (Enchantment enchantment : meta.getEnchants().keySet()) {
+            keywords.addAll(tokenize(enchantment.getKey().getKey()));
+        }
+        if (meta instanceof EnchantmentStorageMeta storageMeta) {
+            for (Enchantment enchantment : storageMeta.getStoredEnchants().keySet()) {
+                keywords.addAll(tokenize(enchantment.getKey().getKey()));
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Join keywords into the space separated form stored alongside a listing,
+     * dropping whole terms that would not fit the column
+     */
+    public static String join(Collection<String> keywords) {
+        StringBuilder joined = new StringBuilder();
+        for (String keyword : keywords) {
+            if (joined.length() + keyword.length() + 1 > MAX_STORED_LENGTH) continue;
+            if (!joined.isEmpty()) joined.append(' ');
+            joined.append(keyword);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Split a stored keyword column back into its terms
+     */
+    public static Set<String> split(String stored) {
+        Set<String> keywords = new HashSet<>();
+        if (stored == null) return keywords;
+
+        for (String keyword : stored.split(" ")) {
+            if (!keyword.isEmpty()) {
+                keywords.add(keyword);
+            }
+        }
+        return keywords;
+    }
+}
@@ -0,0 +1,80 @@
+package io.quagmire.itemmarketplace.manager.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prefix tree over the search vocabulary, used for prefix matching and tab completion
+ */
+public class SearchTrie {
+    private final Node root = new Node();
+
+    /**
+     * Add a term to the vocabulary
+     */
+    public synchronized void insert(String term) {
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.children.computeIfAbsent(term.charAt(i), c -> new Node());
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * Remove a term from the vocabulary, pruning branches that no longer lead to a term
+     */
+    public synchronized void remove(String term) {
+        remove(root, term, 0);
+    }
+
+    private boolean remove(Node node, String term, int depth) {
+        if (depth == term.length()) {
+            node.terminal = false;
+        } else {
+            Node child = node.children.get(term.charAt(depth));
+            if (child == null) return false;
+            if (remove(child, term, depth + 1)) {
+                node.children.remove(term.charAt(depth));
+            }
+        }
+        return !node.terminal && node.children.isEmpty();
+    }
+
+    /**
+     * Get the terms starting with a prefix in alphabetical order
+     *
+     * @param prefix The lowercase prefix to complete
+     * @param limit Maximum number of terms to return
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        List<String> terms = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, new StringBuilder(prefix), terms, limit);
+        }
+        return terms;
+    }
+
+    private void collect(Node node, StringBuilder term, List<String> terms, int limit) {
+        if (terms.size() >= limit) return;
+        if (node.terminal) {
+            terms.add(term.toString());
+        }
+        for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+            if (terms.size() >= limit) return;
+            term.append(entry.getKey());
+            collect(entry.getValue(), term, terms, limit);
+            term.setLength(term.length() - 1);
+        }
+    }
+
+    private static class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private boolean terminal;
+    }
+}
@@ -0,0 +1,60 @@
+package io.quagmire.itemmarketplace.manager.index;
+
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps each seller to the ids of their active listings
+ */
+public class SellerListingIndex {
+    private final ConcurrentHashMap<UUID, Set<Long>> listingsBySeller = new ConcurrentHashMap<>();
+
+    /**
+     * Add a listing to its seller's set
+     */
+    public void add(MarketplaceListing listing) {
+        listingsBySeller.compute(listing.getSellerUuid(), (seller, ids) -> {
+            if (ids == null) ids = ConcurrentHashMap.newKeySet();
+            ids.add(listing.getListingId());
+            return ids;
+        });
+    }
+
+    /**
+     * Remove a listing from its seller's set, dropping the set once it is empty
+     */
+    public void remove(MarketplaceListing listing) {
+        listingsBySeller.computeIfPresent(listing.getSellerUuid(), (seller, ids) -> {
+            ids.remove(listing.getListingId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Get the number of active listings a seller has
+     */
+    public int count(UUID sellerUuid) {
+        Set<Long> ids = listingsBySeller.get(sellerUuid);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Get a snapshot of the listing ids a seller has
+     */
+    public Set<Long> getListingIds(UUID sellerUuid) {
+        Set<Long> ids = listingsBySeller.get(sellerUuid);
+        return ids == null ? Collections.emptySet() : new HashSet<>(ids);
+    }
+
+    /**
+     * Get a snapshot of every seller with at least one active listing
+     */
+    public Set<UUID> getSellers() {
+        return new HashSet<>(listingsBySeller.keySet());
+    }
+}
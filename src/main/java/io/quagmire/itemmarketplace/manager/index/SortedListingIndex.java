@@ -0,0 +1,99 @@
+package io.quagmire.itemmarketplace.manager.index;
+
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import io.quagmire.itemmarketplace.sort.ListingSortType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps active listings pre-sorted by every supported sort order so a menu page
+ * can be served by walking only the entries it displays.
+ */
+public class SortedListingIndex {
+    private static final Comparator<MarketplaceListing> BY_CREATE_DATE = Comparator
+        .comparing(MarketplaceListing::getCreateDateUtc)
+        .thenComparingLong(MarketplaceListing::getListingId);
+
+    private static final Comparator<MarketplaceListing> BY_PRICE = Comparator
+        .comparing(MarketplaceListing::getPrice)
+        .thenComparingLong(MarketplaceListing::getListingId);
+
+    private final ConcurrentSkipListSet<MarketplaceListing> byCreateDate = new ConcurrentSkipListSet<>(BY_CREATE_DATE);
+    private final ConcurrentSkipListSet<MarketplaceListing> byPrice = new ConcurrentSkipListSet<>(BY_PRICE);
+
+    /**
+     * Add a listing to every ordering
+     */
+    public void add(MarketplaceListing listing) {
+        byCreateDate.add(listing);
+        byPrice.add(listing);
+    }
+
+    /**
+     * Remove a listing from every ordering
+     */
+    public void remove(MarketplaceListing listing) {
+        byCreateDate.remove(listing);
+        byPrice.remove(listing);
+    }
+
+    /**
+     * Get the comparator matching the order a sort type walks the index in
+     */
+    public static Comparator<MarketplaceListing> comparator(ListingSortType sortType) {
+        switch (sortType) {
+            case OLDEST:
+                return BY_CREATE_DATE;
+            case PRICE_LOW:
+                return BY_PRICE;
+            case PRICE_HIGH:
+                return BY_PRICE.reversed();
+            case NEWEST:
+            default:
+                return BY_CREATE_DATE.reversed();
+        }
+    }
+
+    /**
+     * Get a single page of listings in the requested order
+     *
+     * @param sortType The order to walk the index in
+     * @param offset Number of listings to skip
+     * @param limit Maximum number of listings to return
+     * @return The listings on the page, never null
+     */
+    public List<MarketplaceListing> page(ListingSortType sortType, int offset, int limit) {
+        if (limit <= 0 || offset < 0) return Collections.emptyList();
+
+        Iterator<MarketplaceListing> iterator = view(sortType).iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+
+        List<MarketplaceListing> page = new ArrayList<>(Math.min(limit, 64));
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    private NavigableSet<MarketplaceListing> view(ListingSortType sortType) {
+        switch (sortType) {
+            case OLDEST:
+                return byCreateDate;
+            case PRICE_LOW:
+                return byPrice;
+            case PRICE_HIGH:
+                return byPrice.descendingSet();
+            case NEWEST:
+            default:
+                return byCreateDate.descendingSet();
+        }
+    }
+}
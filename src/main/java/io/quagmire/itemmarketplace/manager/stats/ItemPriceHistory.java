@@ -0,0 +1,166 @@
+package io.quagmire.itemmarketplace.manager.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The recent sales and current asks of one item signature. Sales are kept in
+ * time order and trimmed to the longest window as they are added; the window
+ * snapshots are recomputed lazily, only after a change or once they are old
+ * enough for samples to have slid out of the window. When the sample bound
+ * drops sales that are still inside a window, that window's figures report
+ * the shorter span they actually cover.
+ */
+class ItemPriceHistory {
+    private final ArrayList<Sale> sales = new ArrayList<>();
+    private final Map<PriceWindow, CachedStats> cachedStats = new EnumMap<>(PriceWindow.class);
+
+    // Unit price of each active listing, and how many listings ask each price
+    private final Map<Long, Double> askPrices = new HashMap<>();
+    private final TreeMap<Double, Integer> askCounts = new TreeMap<>();
+
+    private final int maxSamples;
+    private final long snapshotMillis;
+    private long version;
+
+    // The newest sale dropped by the sample bound rather than by age
+    private long cappedBeforeMillis = Long.MIN_VALUE;
+
+    ItemPriceHistory(int maxSamples, long snapshotMillis) {
+        this.maxSamples = maxSamples;
+        this.snapshotMillis = snapshotMillis;
+    }
+
+    /**
+     * Add a sale, keeping the samples ordered by time even when seeding races live sales
+     */
+    synchronized void addSale(long timeMillis, double unitPrice, int amount) {
+        int index = sales.size();
+        while (index > 0 && sales.get(index - 1).timeMillis() > timeMillis) {
+            index--;
+        }
+        sales.add(index, new Sale(timeMillis, unitPrice, amount));
+
+        trim(System.currentTimeMillis());
+        version++;
+    }
+
+    synchronized void addAsk(long listingId, double unitPrice) {
+        removeAsk(listingId);
+        askPrices.put(listingId, unitPrice);
+        askCounts.merge(unitPrice, 1, Integer::sum);
+    }
+
+    synchronized void removeAsk(long listingId) {
+        Double unitPrice = askPrices.remove(listingId);
+        if (unitPrice != null) {
+            askCounts.computeIfPresent(unitPrice, (price, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * Get the lowest unit price currently asked, or null if nothing is listed
+     */
+    synchronized Double getLowestAsk() {
+        return askCounts.isEmpty() ? null : askCounts.firstKey();
+    }
+
+    synchronized int getAskCount() {
+        return askPrices.size();
+    }
+
+    synchronized boolean isEmpty() {
+        trim(System.currentTimeMillis());
+        return sales.isEmpty() && askPrices.isEmpty();
+    }
+
+    /**
+     * Get the sales statistics over a window, or null if there were no sales in it
+     */
+    synchronized PriceStats getStats(PriceWindow window) {
+        long now = System.currentTimeMillis();
+        CachedStats cached = cachedStats.get(window);
+        if (cached != null && cached.version() == version && now - cached.computedAt() < snapshotMillis) {
+            return cached.stats();
+        }
+
+        PriceStats stats = compute(now - window.getMillis());
+        cachedStats.put(window, new CachedStats(stats, version, now));
+        return stats;
+    }
+
+    private PriceStats compute(long sinceMillis) {
+        List<Sale> inWindow = new ArrayList<>();
+        for (int i = sales.size() - 1; i >= 0 && sales.get(i).timeMillis() >= sinceMillis; i--) {
+            inWindow.add(sales.get(i));
+        }
+        if (inWindow.isEmpty()) return null;
+
+        boolean truncated = cappedBeforeMillis >= sinceMillis;
+        long coveredSince = truncated ? inWindow.get(inWindow.size() - 1).timeMillis() : sinceMillis;
+
+        double[] unitPrices = new double[inWindow.size()];
+        double weightedTotal = 0;
+        long volume = 0;
+        for (int i = 0; i < inWindow.size(); i++) {
+            Sale sale = inWindow.get(i);
+            unitPrices[i] = sale.unitPrice();
+            weightedTotal += sale.unitPrice() * sale.amount();
+            volume += sale.amount();
+        }
+        Arrays.sort(unitPrices);
+
+        return new PriceStats(
+            unitPrices.length,
+            volume,
+            unitPrices[0],
+            percentile(unitPrices, 0.25),
+            percentile(unitPrices, 0.5),
+            percentile(unitPrices, 0.75),
+            percentile(unitPrices, 0.9),
+            volume == 0 ? unitPrices[0] : weightedTotal / volume,
+            truncated,
+            coveredSince
+        );
+    }
+
+    /**
+     * Linearly interpolated percentile of sorted values
+     */
+    private static double percentile(double[] sorted, double fraction) {
+        double position = fraction * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = (int) Math.ceil(position);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+    }
+
+    /**
+     * Drop sales older than the longest window and any beyond the sample bound
+     */
+    private void trim(long now) {
+        long cutoff = now - PriceWindow.longest().getMillis();
+        int drop = 0;
+        while (drop < sales.size() && sales.get(drop).timeMillis() < cutoff) {
+            drop++;
+        }
+        if (sales.size() - maxSamples > drop) {
+            drop = sales.size() - maxSamples;
+            cappedBeforeMillis = Math.max(cappedBeforeMillis, sales.get(drop - 1).timeMillis());
+        }
+        if (drop > 0) {
+            sales.subList(0, drop).clear();
+            version++;
+        }
+    }
+
+    private record Sale(long timeMillis, double unitPrice, int amount) {
+    }
+
+    private record CachedStats(PriceStats stats, long version, long computedAt) {
+    }
+}
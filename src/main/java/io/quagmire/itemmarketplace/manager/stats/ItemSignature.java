@@ -0,0 +1,50 @@
+package io.quagmire.itemmarketplace.manager.stats;
+
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Normalizes an item into the key its price statistics are grouped under: the
+ * material plus its enchantments in a stable order. Amount, display name and
+ * lore are ignored, so renamed stacks of the same item share one history.
+ */
+public final class ItemSignature {
+    /**
+     * Maximum length of the stored signature column
+     */
+    public static final int MAX_STORED_LENGTH = 255;
+
+    private ItemSignature() {
+    }
+
+    public static String of(ItemStack item) {
+        StringBuilder signature = new StringBuilder(item.getType().name());
+
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            appendEnchants(signature, meta.getEnchants());
+            if (meta instanceof EnchantmentStorageMeta storageMeta) {
+                appendEnchants(signature, storageMeta.getStoredEnchants());
+            }
+        }
+
+        return signature.length() <= MAX_STORED_LENGTH ? signature.toString() : signature.substring(0, MAX_STORED_LENGTH);
+    }
+
+    private static void appendEnchants(StringBuilder signature, Map<Enchantment, Integer> enchants) {
+        if (enchants.isEmpty()) return;
+
+        Map<String, Integer> sorted = new TreeMap<>();
+        for (Map.Entry<Enchantment, Integer> entry : enchants.entrySet()) {
+            sorted.put(entry.getKey().getKey().toString(), entry.getValue());
+        }
+        for (Map.Entry<String, Integer> entry : sorted.entrySet()) {
+            signature.append('|').append(entry.getKey()).append(':').append(entry.getValue());
+        }
+    }
+}
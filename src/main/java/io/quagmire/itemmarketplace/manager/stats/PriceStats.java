@@ -0,0 +1,22 @@
+package io.quagmire.itemmarketplace.manager.stats;
+
+/**
+ * A snapshot of an item's sales over one window. Prices are per single item,
+ * so stacks of different sizes compare directly.
+ *
+ * @param sales The number of sales
+ * @param volume The number of items sold
+ * @param min The lowest unit price
+ * @param p25 The 25th percentile unit price
+ * @param median The median unit price
+ * @param p75 The 75th percentile unit price
+ * @param p90 The 90th percentile unit price
+ * @param weightedAverage The unit price averaged over every item sold
+ * @param truncated Whether the sample bound dropped older sales of the window
+ * @param coveredSinceMillis When the sales the figures cover start, the start
+ *                           of the window unless they were truncated
+ */
+public record PriceStats(int sales, long volume, double min, double p25, double median,
+                         double p75, double p90, double weightedAverage,
+                         boolean truncated, long coveredSinceMillis) {
+}
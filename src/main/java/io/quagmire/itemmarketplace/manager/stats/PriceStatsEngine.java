@@ -0,0 +1,247 @@
+package io.quagmire.itemmarketplace.manager.stats;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.TransactionHistoryDatabase;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import io.quagmire.itemmarketplace.model.MarketplaceTransaction;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory price statistics per item signature. Sales are fed in as purchases
+ * settle and asks as listings come and go, and the history is seeded once from
+ * the transactions table at startup. Sales settled by other servers are picked
+ * up by tailing the transactions table past the last id seen. Reads never touch the database. Rows the
+ * item metadata backfill has not reached have no signature and are left out
+ * rather than having their items materialized.
+ */
+public class PriceStatsEngine {
+    private final ItemMarketplacePlugin plugin;
+    private final ConcurrentHashMap<String, ItemPriceHistory> histories = new ConcurrentHashMap<>();
+    private final Map<Long, String> askSignatures = new ConcurrentHashMap<>();
+
+    private final int maxSamples;
+    private final long snapshotMillis;
+    private final int seedChunkSize;
+
+    // Transactions up to this id are left to the seed so none is counted twice
+    private volatile long seedCeiling = Long.MAX_VALUE;
+    @Getter private volatile boolean seeded;
+
+    // The tail has read every transaction up to this id, -1 until the seed sets it
+    private long lastSaleId = -1;
+    // Local sales above the tail, skipped when the tail reaches them
+    private final Set<Long> localSales = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean tailing = new AtomicBoolean();
+
+    public PriceStatsEngine(ItemMarketplacePlugin plugin) {
+        this.plugin = plugin;
+        this.maxSamples = Math.max(1, plugin.getConfig().getInt("stats.max-samples", 2000));
+        this.snapshotMillis = Math.max(1L, plugin.getConfig().getLong("stats.snapshot-seconds", 60L)) * 1000L;
+        this.seedChunkSize = Math.max(1, plugin.getConfig().getInt("stats.seed-chunk-size", 1000));
+    }
+
+    /**
+     * Read the sales of the longest window from the database in the background
+     *
+     * @return Completes with the number of sales read
+     */
+    public CompletableFuture<Long> seed() {
+        TransactionHistoryDatabase db = plugin.getDatabaseCollection().getTransactionHistoryDatabase();
+        Timestamp since = new Timestamp(System.currentTimeMillis() - PriceWindow.longest().getMillis());
+
+        return plugin.getListingManager().queryAsync(() -> {
+            try {
+                long ceiling = db.getMaxTransactionId();
+                seedCeiling = ceiling;
+                synchronized (this) {
+                    lastSaleId = ceiling;
+                }
+
+                long count = 0;
+                long cursor = db.getFirstTransactionIdSince(since) - 1;
+                while (cursor < ceiling) {
+                    List<TransactionHistoryDatabase.PriceSample> chunk = db.getPriceSamples(cursor, ceiling, seedChunkSize);
+                    if (chunk.isEmpty()) break;
+
+                    for (TransactionHistoryDatabase.PriceSample sample : chunk) {
+                        recordSale(sample.itemSignature(), sample.price(), sample.amount(), sample.transactionDateUtc().getTime());
+                    }
+                    count += chunk.size();
+                    cursor = chunk.get(chunk.size() - 1).transactionId();
+                }
+
+                seeded = true;
+                return count;
+            } catch (SQLException | RuntimeException e) {
+                // Count live sales from here on rather than leaving them all to a seed that failed
+                if (seedCeiling == Long.MAX_VALUE) seedCeiling = 0;
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Record a settled purchase of a listing
+     */
+    public void recordSale(MarketplaceListing listing, MarketplaceTransaction transaction) {
+        String signature = signatureOf(listing);
+        if (signature == null || transaction.getTransactionId() <= seedCeiling) return;
+        if (!claimLocalSale(transaction.getTransactionId())) return;
+        recordSale(signature, transaction.getPrice(), listing.getAmount(),
+            transaction.getTransactionDateUtc().getTime());
+    }
+
+    /**
+     * Record the sales settled since the last id seen, including those of other
+     * servers. Sales this server already recorded are skipped. Does nothing until
+     * the seed has fixed its starting point, or while another call is reading.
+     *
+     * @return The number of sales recorded
+     */
+    public int catchUp() throws SQLException {
+        if (!tailing.compareAndSet(false, true)) return 0;
+        try {
+            TransactionHistoryDatabase db = plugin.getDatabaseCollection().getTransactionHistoryDatabase();
+            int count = 0;
+            while (true) {
+                long afterId;
+                synchronized (this) {
+                    afterId = lastSaleId;
+                }
+                if (afterId < 0) return count;
+
+                List<TransactionHistoryDatabase.PriceSample> chunk = db.getPriceSamples(afterId, Long.MAX_VALUE, seedChunkSize);
+                for (TransactionHistoryDatabase.PriceSample sample : chunk) {
+                    if (advanceTail(sample.transactionId())) {
+                        recordSale(sample.itemSignature(), sample.price(), sample.amount(), sample.transactionDateUtc().getTime());
+                        count++;
+                    }
+                }
+                if (chunk.size() < seedChunkSize) return count;
+            }
+        } finally {
+            tailing.set(false);
+        }
+    }
+
+    /**
+     * Claim a local sale for recording
+     *
+     * @return False if the tail already recorded it
+     */
+    private synchronized boolean claimLocalSale(long transactionId) {
+        // Without a seeded starting point there is no tail to share the sale with
+        if (lastSaleId < 0) return true;
+        if (transactionId <= lastSaleId) return false;
+        localSales.add(transactionId);
+        return true;
+    }
+
+    /**
+     * Move the tail past a transaction
+     *
+     * @return False if the sale was already recorded locally
+     */
+    private synchronized boolean advanceTail(long transactionId) {
+        lastSaleId = Math.max(lastSaleId, transactionId);
+        return !localSales.remove(transactionId);
+    }
+
+    private void recordSale(String signature, BigDecimal price, int amount, long timeMillis) {
+        double unitPrice = unitPrice(price, amount);
+        histories.compute(signature, (key, history) -> {
+            if (history == null) history = new ItemPriceHistory(maxSamples, snapshotMillis);
+            history.addSale(timeMillis, unitPrice, Math.max(1, amount));
+            return history;
+        });
+    }
+
+    /**
+     * Track a listing's ask while it is active
+     */
+    public void addListing(MarketplaceListing listing) {
+        String signature = signatureOf(listing);
+        if (signature == null) return;
+        double unitPrice = unitPrice(listing.getPrice(), listing.getAmount());
+
+        String previous = askSignatures.put(listing.getListingId(), signature);
+        if (previous != null && !previous.equals(signature)) {
+            removeAsk(previous, listing.getListingId());
+        }
+        histories.compute(signature, (key, history) -> {
+            if (history == null) history = new ItemPriceHistory(maxSamples, snapshotMillis);
+            history.addAsk(listing.getListingId(), unitPrice);
+            return history;
+        });
+    }
+
+    /**
+     * Stop tracking the ask of a listing that left the marketplace
+     */
+    public void removeListing(MarketplaceListing listing) {
+        String signature = askSignatures.remove(listing.getListingId());
+        if (signature != null) {
+            removeAsk(signature, listing.getListingId());
+        }
+    }
+
+    private void removeAsk(String signature, long listingId) {
+        histories.computeIfPresent(signature, (key, history) -> {
+            history.removeAsk(listingId);
+            return history.isEmpty() ? null : history;
+        });
+    }
+
+    /**
+     * Get the sales statistics of an item over a window
+     *
+     * @return The statistics, or null if the item did not sell in the window
+     */
+    public PriceStats getStats(String signature, PriceWindow window) {
+        if (signature == null) return null;
+        ItemPriceHistory history = histories.get(signature);
+        return history == null ? null : history.getStats(window);
+    }
+
+    /**
+     * Get the lowest unit price an item is currently listed at, or null if it is not listed
+     */
+    public Double getLowestAsk(String signature) {
+        if (signature == null) return null;
+        ItemPriceHistory history = histories.get(signature);
+        return history == null ? null : history.getLowestAsk();
+    }
+
+    /**
+     * Get the number of active listings of an item
+     */
+    public int getAskCount(String signature) {
+        if (signature == null) return 0;
+        ItemPriceHistory history = histories.get(signature);
+        return history == null ? 0 : history.getAskCount();
+    }
+
+    /**
+     * Get the signature a listing's statistics are kept under
+     *
+     * @return The stored signature, or null for a row not backfilled yet
+     */
+    public String signatureOf(MarketplaceListing listing) {
+        return listing.getItemSignature();
+    }
+
+    private static double unitPrice(BigDecimal price, int amount) {
+        return amount <= 1 ? price.doubleValue() : price.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL64).doubleValue();
+    }
+}
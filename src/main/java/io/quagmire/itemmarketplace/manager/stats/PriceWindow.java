@@ -0,0 +1,44 @@
+package io.quagmire.itemmarketplace.manager.stats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sliding windows price statistics are reported over
+ */
+public enum PriceWindow {
+    DAY("24h", TimeUnit.DAYS.toMillis(1)),
+    WEEK("7d", TimeUnit.DAYS.toMillis(7)),
+    MONTH("30d", TimeUnit.DAYS.toMillis(30));
+
+    private final String label;
+    private final long millis;
+
+    PriceWindow(String label, long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * The longest window, which bounds how much history is kept
+     */
+    public static PriceWindow longest() {
+        return MONTH;
+    }
+
+    public static PriceWindow fromLabel(String label, PriceWindow fallback) {
+        for (PriceWindow window : values()) {
+            if (window.label.equalsIgnoreCase(label)) {
+                return window;
+            }
+        }
+        return fallback;
+    }
+}
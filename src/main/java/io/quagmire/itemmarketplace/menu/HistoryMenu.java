@@ -0,0 +1,272 @@
+package io.quagmire.itemmarketplace.menu;
+
+import io.quagmire.core.menu.linked.LinkedMenu;
+import io.quagmire.core.utilities.item.ItemStackConfiguration;
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.databases.implementations.TransactionHistoryDatabase;
+import io.quagmire.itemmarketplace.messages.Message;
+import io.quagmire.itemmarketplace.model.MarketplaceTransaction;
+import io.quagmire.itemmarketplace.model.TransactionCursor;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shows a player their past purchases or sales, newest first. Pages are read
+ * asynchronously with keyset pagination and only the transactions on the page
+ * being viewed ever have their items deserialized.
+ */
+public class HistoryMenu extends LinkedMenu<ItemMarketplacePlugin> {
+    private final ListingItemRenderer renderer;
+
+    // Store each viewer's history session by player UUID
+    private final Map<UUID, HistorySession> sessions;
+
+    private static final int ITEMS_PER_PAGE = 45;
+    private static final int NEXT_PAGE_SLOT = 53;
+    private static final int PREV_PAGE_SLOT = 45;
+    private static final int MODE_SLOT = 49;
+
+    // Menu configuration items
+    private ItemStack noHistoryItem;
+    private ItemStack loadingItem;
+    private ItemStack errorItem;
+    private ItemStack prevPageButton;
+    private ItemStack nextPageButton;
+    private ItemStack modeButton;
+
+    public HistoryMenu(ItemMarketplacePlugin plugin, String name) {
+        super(plugin, name);
+
+        renderer = plugin.getListingItemRenderer();
+        sessions = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void reload(FileConfiguration config) {
+        try {
+            super.reload(config);
+
+            ConfigurationSection menuItems = config.getConfigurationSection("menu-items");
+            if (menuItems != null) {
+                noHistoryItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("no-history"));
+                loadingItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("loading"));
+                errorItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("error"));
+                prevPageButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("prev-page"));
+                nextPageButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("next-page"));
+                modeButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("mode"));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error reloading history menu: " + e.getMessage());
+        }
+    }
+
+    private HistorySession getSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), uuid -> new HistorySession());
+    }
+
+    private String getModeName(HistorySession session) {
+        Message mode = session.sales ? Message.HISTORY_SALES : Message.HISTORY_PURCHASES;
+        return plugin.getMessagesManager().get(mode.name().toLowerCase());
+    }
+
+    @Override
+    protected Map<String, String> getPlaceholders(Player player, OfflinePlayer target, int slot) {
+        Map<String, String> placeholders = new HashMap<>();
+
+        HistorySession session = getSession(player);
+        placeholders.put("current_page", String.valueOf(session.page + 1));
+        placeholders.put("history_mode", getModeName(session));
+        return placeholders;
+    }
+
+    @Override
+    protected Map<Integer, MenuItem> getAdditionalItems(Player player, OfflinePlayer target) {
+        Map<Integer, MenuItem> items = new HashMap<>();
+        HistorySession session = getSession(player);
+
+        try {
+            List<MarketplaceTransaction> transactions = session.transactions;
+            if (transactions == null) {
+                if (loadingItem != null) {
+                    items.put(22, new MenuItem(loadingItem.clone(), null));
+                }
+            } else if (session.failed) {
+                if (errorItem != null) {
+                    items.put(22, new MenuItem(errorItem.clone(), null));
+                }
+            } else if (transactions.isEmpty() && noHistoryItem != null) {
+                items.put(22, new MenuItem(noHistoryItem.clone(), null));
+            } else {
+                for (int slot = 0; slot < transactions.size(); slot++) {
+                    MarketplaceTransaction transaction = transactions.get(slot);
+                    try {
+                        items.put(slot, new MenuItem(renderer.renderTransaction(transaction, !session.sales), null));
+                    } catch (Exception e) {
+                        plugin.getLogger().warning("Error processing transaction ID " + transaction.getTransactionId() + ": " + e.getMessage());
+                    }
+                }
+            }
+
+            if (session.page > 0 && prevPageButton != null) {
+                items.put(PREV_PAGE_SLOT, new MenuItem(withLore(prevPageButton, "%current_page%", String.valueOf(session.page + 1)), null));
+            }
+            if (session.hasNext && nextPageButton != null) {
+                items.put(NEXT_PAGE_SLOT, new MenuItem(withLore(nextPageButton, "%current_page%", String.valueOf(session.page + 1)), null));
+            }
+            if (modeButton != null) {
+                items.put(MODE_SLOT, new MenuItem(withLore(modeButton, "%history_mode%", getModeName(session)), null));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error generating history menu: " + e.getMessage());
+            e.printStackTrace();
+
+            if (errorItem != null) {
+                items.put(22, new MenuItem(errorItem.clone(), null));
+            }
+        }
+
+        return items;
+    }
+
+    private ItemStack withLore(ItemStack template, String placeholder, String value) {
+        ItemStack button = template.clone();
+        ItemMeta meta = button.getItemMeta();
+
+        if (meta != null && meta.hasLore()) {
+            List<String> lore = new ArrayList<>(meta.getLore());
+            lore.replaceAll(line -> line.replace(placeholder, value));
+            meta.setLore(lore);
+            button.setItemMeta(meta);
+        }
+        return button;
+    }
+
+    @Override
+    public void openInventory(Player player, OfflinePlayer target) {
+        // Every open starts a fresh session on the first page of purchases
+        HistorySession session = new HistorySession();
+        sessions.put(player.getUniqueId(), session);
+        loadPage(player, session, 0);
+        super.openInventory(player, target);
+        session.inventory = player.getOpenInventory().getTopInventory();
+    }
+
+    @Override
+    public void handleClose(InventoryCloseEvent event) {
+        HistorySession session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null && session.inventory == event.getInventory()) {
+            sessions.remove(event.getPlayer().getUniqueId(), session);
+        }
+        super.handleClose(event);
+    }
+
+    @Override
+    public void handleClick(InventoryClickEvent event) {
+        Player player = (Player) event.getWhoClicked();
+
+        if (event.getClickedInventory() == null ||
+            !event.getClickedInventory().equals(event.getView().getTopInventory())) {
+            return;
+        }
+
+        int slot = event.getSlot();
+        HistorySession session = getSession(player);
+
+        try {
+            if (slot == MODE_SLOT && modeButton != null) {
+                session.sales = !session.sales;
+                session.cursors.clear();
+                session.cursors.add(null);
+                player.playSound(player.getLocation(), "block.note_block.hat", 0.5f, 1.0f);
+                loadPage(player, session, 0);
+                return;
+            }
+
+            if (slot == NEXT_PAGE_SLOT && session.hasNext && nextPageButton != null) {
+                loadPage(player, session, session.page + 1);
+                return;
+            }
+
+            if (slot == PREV_PAGE_SLOT && session.page > 0 && prevPageButton != null) {
+                loadPage(player, session, session.page - 1);
+                return;
+            }
+
+            super.handleClick(event);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error handling menu click: " + e.getMessage());
+            player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_GENERIC.name().toLowerCase()));
+            player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+        }
+    }
+
+    /**
+     * Read a page of the viewer's history and show it once it arrives. One extra
+     * row tells whether a next page exists, and a newer request supersedes this one.
+     */
+    private void loadPage(Player player, HistorySession session, int page) {
+        long request = session.request.incrementAndGet();
+        boolean sales = session.sales;
+        TransactionCursor after = page < session.cursors.size() ? session.cursors.get(page) : null;
+        UUID playerUuid = player.getUniqueId();
+
+        plugin.getListingManager().queryAsync(() -> {
+            TransactionHistoryDatabase db = plugin.getDatabaseCollection().getTransactionHistoryDatabase();
+            return sales ?
+                db.getTransactionsBySeller(playerUuid, after, ITEMS_PER_PAGE + 1) :
+                db.getTransactionsByBuyer(playerUuid, after, ITEMS_PER_PAGE + 1);
+        }).whenComplete((rows, error) ->
+            plugin.getScheduler().runAtEntity(player, (task) -> {
+                if (session.request.get() != request) return;
+
+                if (error != null) {
+                    plugin.getLogger().severe("Error loading history of " + player.getName() + ": " + error.getMessage());
+                    session.failed = true;
+                    session.transactions = Collections.emptyList();
+                    session.hasNext = false;
+                } else {
+                    boolean hasNext = rows.size() > ITEMS_PER_PAGE;
+                    List<MarketplaceTransaction> transactions = List.copyOf(hasNext ? rows.subList(0, ITEMS_PER_PAGE) : rows);
+
+                    // Keep the cursors up to this page and remember where the next one starts
+                    while (session.cursors.size() > page + 1) {
+                        session.cursors.remove(session.cursors.size() - 1);
+                    }
+                    if (hasNext) {
+                        session.cursors.add(TransactionCursor.of(transactions.get(transactions.size() - 1)));
+                    }
+
+                    session.failed = false;
+                    session.page = page;
+                    session.transactions = transactions;
+                    session.hasNext = hasNext;
+                }
+                refresh(player);
+            }));
+    }
+
+    /**
+     * A viewer's history state, only changed on their own entity thread
+     */
+    private static final class HistorySession {
+        private final List<TransactionCursor> cursors = new ArrayList<>(Collections.singletonList(null));
+        private final AtomicLong request = new AtomicLong();
+        private volatile boolean sales;
+        private volatile int page;
+        private volatile boolean hasNext;
+        private volatile boolean failed;
+        private volatile List<MarketplaceTransaction> transactions;
+        private volatile Inventory inventory;
+    }
+}
@@ -0,0 +1,313 @@
+package io.quagmire.itemmarketplace.menu;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.manager.stats.PriceStats;
+import io.quagmire.itemmarketplace.manager.stats.PriceStatsEngine;
+import io.quagmire.itemmarketplace.manager.stats.PriceWindow;
+import io.quagmire.itemmarketplace.messages.Message;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import io.quagmire.itemmarketplace.model.MarketplaceTransaction;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the display items and formatted values shared by every menu that shows listings.
+ * Rendered items are cached per listing and reused while the listing instance, its
+ * relative-time lines, its market price line and the seller name shown are unchanged,
+ * so a page render is mostly clones.
+ */
+public class ListingItemRenderer {
+    private static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private final ItemMarketplacePlugin plugin;
+    private final DecimalFormat decimalFormat;
+    private final Map<Long, Map<RenderVariant, RenderedItem>> renderCache;
+    private volatile int maxCacheSize;
+
+    public ListingItemRenderer(ItemMarketplacePlugin plugin) {
+        this.plugin = plugin;
+
+        decimalFormat = new DecimalFormat("#,##0.00");
+        decimalFormat.setMaximumFractionDigits(2);
+
+        maxCacheSize = readCacheSize();
+        renderCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<RenderVariant, RenderedItem>> eldest) {
+                return size() > maxCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Drop every cached item and re-read the cache size, used when messages or config are reloaded
+     */
+    public void reload() {
+        maxCacheSize = readCacheSize();
+        renderCache.clear();
+    }
+
+    /**
+     * Drop the cached items of a listing that changed or left the marketplace
+     */
+    public void invalidate(long listingId) {
+        renderCache.remove(listingId);
+    }
+
+    private int readCacheSize() {
+        return Math.max(0, plugin.getConfig().getInt("menus.render-cache-size", DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * Build the display item for a listing
+     *
+     * @param listing The listing to display
+     * @param showSeller Whether to include the seller line
+     * @param action The message shown as the last lore line
+     * @return The display item, or null if the listing holds no valid item
+     */
+    public ItemStack render(MarketplaceListing listing, boolean showSeller, Message action) {
+        ItemStack displayItem = renderShared(listing, showSeller, action);
+        return displayItem == null ? null : displayItem.clone();
+    }
+    
+    /**
+     * Build the display item for a listing without copying it. The same instance
+     * is returned while the rendered content is unchanged, so callers can tell
+     * changes apart by identity; it must not be modified.
+     *
+     * @return The display item, or null if the listing holds no valid item
+     */
+    public ItemStack renderShared(MarketplaceListing listing, boolean showSeller, Message action) {
+        if (listing.getMaterial() == Material.AIR) {
+            plugin.getLogger().warning("Invalid item in listing ID: " + listing.getListingId());
+            return null;
+        }
+
+        // The relative-time lines are the only part that changes for an unchanged listing
+        long now = System.currentTimeMillis();
+        String timeListed = formatTimeListed(listing.getCreateDateUtc(), now);
+        String expiryTime = formatExpiryTime(listing.getExpiryDateUtc(), now);
+        Map<String, String> marketPlaceholders = getMarketPlaceholders(listing);
+        String marketLine = marketPlaceholders.isEmpty() ? "" :
+            replacePlaceholders(message(Message.LISTING_MARKET_PRICE), marketPlaceholders);
+        // A seller name that resolves after the first render must not be served stale
+        String sellerName = showSeller ? getSellerName(listing.getSellerUuid()) : "";
+
+        RenderVariant variant = new RenderVariant(showSeller, action);
+        Map<RenderVariant, RenderedItem> variants = renderCache.get(listing.getListingId());
+        RenderedItem cached = variants == null ? null : variants.get(variant);
+        if (cached != null && cached.listing() == listing &&
+            cached.timeListed().equals(timeListed) && cached.expiryTime().equals(expiryTime) &&
+            cached.marketLine().equals(marketLine) && cached.sellerName().equals(sellerName)) {
+            return cached.item();
+        }
+
+        ItemStack displayItem = listing.getItemStack().clone();
+
+        // Keep the item's own lore above the listing details
+        List<String> lore = new ArrayList<>();
+        ItemMeta meta = displayItem.getItemMeta();
+        if (meta != null && meta.hasLore()) {
+            lore.addAll(meta.getLore());
+        }
+
+        Map<String, String> placeholders = getPlaceholders(listing, showSeller, timeListed, expiryTime);
+        if (showSeller) {
+            lore.add(replacePlaceholders(message(Message.LISTING_SELLER), placeholders));
+        }
+        lore.add(replacePlaceholders(message(Message.LISTING_PRICE), placeholders));
+        if (!marketLine.isEmpty()) {
+            lore.add(marketLine);
+        }
+        lore.add(replacePlaceholders(message(Message.LISTING_LISTED), placeholders));
+        if (listing.getExpiryDateUtc() != null) {
+            lore.add(replacePlaceholders(message(Message.LISTING_EXPIRES), placeholders));
+        }
+        lore.add(replacePlaceholders(message(action), placeholders));
+
+        if (meta != null) {
+            meta.setLore(lore);
+            displayItem.setItemMeta(meta);
+        }
+
+        if (maxCacheSize > 0) {
+            renderCache.computeIfAbsent(listing.getListingId(), id -> new ConcurrentHashMap<>())
+                .put(variant, new RenderedItem(listing, timeListed, expiryTime, marketLine, sellerName, displayItem));
+        }
+        return displayItem;
+    }
+
+    /**
+     * Build the display item for a past transaction, shown from the point of view
+     * of either its buyer or its seller
+     *
+     * @param transaction The transaction to display
+     * @param asBuyer Whether the viewer bought the item, showing the seller, or sold it, showing the buyer
+     */
+    public ItemStack renderTransaction(MarketplaceTransaction transaction, boolean asBuyer) {
+        ItemStack displayItem = transaction.getItemStack().clone();
+
+        List<String> lore = new ArrayList<>();
+        ItemMeta meta = displayItem.getItemMeta();
+        if (meta != null && meta.hasLore()) {
+            lore.addAll(meta.getLore());
+        }
+
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("price", formatPrice(transaction.getPrice()));
+        placeholders.put("amount", String.valueOf(displayItem.getAmount()));
+        placeholders.put("time", formatTimeListed(transaction.getTransactionDateUtc()));
+        placeholders.put("seller", getSellerName(transaction.getSellerUuid()));
+        placeholders.put("buyer", getSellerName(transaction.getBuyerUuid()));
+
+        lore.add(replacePlaceholders(message(asBuyer ? Message.HISTORY_BOUGHT_FROM : Message.HISTORY_SOLD_TO), placeholders));
+        lore.add(replacePlaceholders(message(Message.LISTING_PRICE), placeholders));
+        lore.add(replacePlaceholders(message(Message.HISTORY_DATE), placeholders));
+
+        if (meta != null) {
+            meta.setLore(lore);
+            displayItem.setItemMeta(meta);
+        }
+        return displayItem;
+    }
+
+    /**
+     * Get the listing specific placeholders
+     */
+    public Map<String, String> getPlaceholders(MarketplaceListing listing, boolean includeSeller) {
+        long now = System.currentTimeMillis();
+        return getPlaceholders(listing, includeSeller,
+            formatTimeListed(listing.getCreateDateUtc(), now), formatExpiryTime(listing.getExpiryDateUtc(), now));
+    }
+
+    private Map<String, String> getPlaceholders(MarketplaceListing listing, boolean includeSeller,
+                                                String timeListed, String expiryTime) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("price", formatPrice(listing.getPrice()));
+        placeholders.put("amount", String.valueOf(listing.getAmount()));
+        placeholders.put("time_listed", timeListed);
+        placeholders.put("expiry_time", expiryTime);
+        if (includeSeller) {
+            placeholders.put("seller", getSellerName(listing.getSellerUuid()));
+        }
+        placeholders.putAll(getMarketPlaceholders(listing));
+        return placeholders;
+    }
+
+    /**
+     * Get the market price placeholders of a listing's item over the configured
+     * lore window, read from the in-memory statistics
+     *
+     * @return The placeholders, empty if the item did not sell in the window
+     */
+    public Map<String, String> getMarketPlaceholders(MarketplaceListing listing) {
+        PriceStatsEngine priceStats = plugin.getListingManager().getPriceStats();
+        PriceWindow window = PriceWindow.fromLabel(plugin.getConfig().getString("stats.lore-window", "7d"), PriceWindow.WEEK);
+        PriceStats stats = priceStats.getStats(priceStats.signatureOf(listing), window);
+        if (stats == null) return Map.of();
+
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("market_window", window.getLabel());
+        placeholders.put("market_sales", String.valueOf(stats.sales()));
+        placeholders.put("market_min", formatPrice(stats.min()));
+        placeholders.put("market_median", formatPrice(stats.median()));
+        placeholders.put("market_average", formatPrice(stats.weightedAverage()));
+        return placeholders;
+    }
+
+    /**
+     * Get a seller's name from the name cache, or a placeholder while it resolves
+     */
+    public String getSellerName(UUID sellerUuid) {
+        String name = plugin.getSellerNameCache().getName(sellerUuid);
+        return name != null ? name : message(Message.LISTING_SELLER_RESOLVING);
+    }
+
+    public String formatPrice(BigDecimal price) {
+        return decimalFormat.format(price);
+    }
+
+    public String formatPrice(double price) {
+        return decimalFormat.format(price);
+    }
+
+    public String replacePlaceholders(String text, Map<String, String> placeholders) {
+        String result = text;
+        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+            result = result.replace("%" + entry.getKey() + "%", entry.getValue());
+        }
+        return ChatColor.translateAlternateColorCodes('&', result);
+    }
+
+    public String formatTimeListed(Timestamp timestamp) {
+        return formatTimeListed(timestamp, System.currentTimeMillis());
+    }
+
+    public String formatTimeListed(Timestamp timestamp, long nowMillis) {
+        if (timestamp == null) return "Unknown";
+
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(nowMillis - timestamp.getTime());
+        if (seconds < 60) {
+            return seconds + " seconds ago";
+        }
+
+        long minutes = TimeUnit.SECONDS.toMinutes(seconds);
+        if (minutes < 60) {
+            return minutes + " minutes ago";
+        }
+
+        long hours = TimeUnit.SECONDS.toHours(seconds);
+        if (hours < 24) {
+            return hours + " hours ago";
+        }
+
+        return TimeUnit.SECONDS.toDays(seconds) + " days ago";
+    }
+
+    public String formatExpiryTime(Timestamp timestamp) {
+        return formatExpiryTime(timestamp, System.currentTimeMillis());
+    }
+
+    public String formatExpiryTime(Timestamp timestamp, long nowMillis) {
+        if (timestamp == null) return message(Message.LISTING_NEVER_EXPIRES);
+
+        long remaining = timestamp.getTime() - nowMillis;
+        if (remaining < 0) {
+            return message(Message.LISTING_EXPIRED);
+        }
+
+        long hours = TimeUnit.MILLISECONDS.toHours(remaining);
+        if (hours < 24) {
+            return hours + " hours";
+        }
+
+        return TimeUnit.MILLISECONDS.toDays(remaining) + " days";
+    }
+
+    private String message(Message message) {
+        return plugin.getMessagesManager().get(message.name().toLowerCase());
+    }
+
+    private record RenderVariant(boolean showSeller, Message action) {
+    }
+
+    private record RenderedItem(MarketplaceListing listing, String timeListed, String expiryTime, String marketLine,
+                                String sellerName, ItemStack item) {
+    }
+}
@@ -0,0 +1,173 @@
+package io.quagmire.itemmarketplace.menu;
+
+import io.quagmire.itemmarketplace.manager.browse.ListingPage;
+import io.quagmire.itemmarketplace.model.ListingCursor;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import io.quagmire.itemmarketplace.sort.ListingSortType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.inventory.Inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state of one player's listings menu: their sort, search and page, plus an
+ * immutable snapshot of which listing each slot of the rendered page shows.
+ * Clicks resolve against the snapshot the player is looking at, so renders for
+ * other viewers can never shift what a slot buys.
+ */
+@Getter
+public class ListingMenuSession {
+    @Setter private volatile ListingSortType sort = ListingSortType.NEWEST;
+    @Setter private volatile String searchTerm;
+    @Setter private volatile int page;
+    private volatile int maxPage;
+    private volatile Map<Integer, Long> slotListings = Map.of();
+
+    // The range of the sort order the rendered page covers, used to tell whether a new listing lands on it
+    private volatile MarketplaceListing firstListing;
+    private volatile MarketplaceListing lastListing;
+    private volatile boolean pageFull;
+
+    // The sellers of the listings on the rendered page, used to patch in resolved names
+    @Getter(AccessLevel.NONE) private volatile Set<UUID> sellers = Set.of();
+
+    // A live update is waiting to be rendered, and when the last one was
+    @Getter(AccessLevel.NONE) private final AtomicBoolean liveUpdatePending = new AtomicBoolean();
+    private volatile long lastLiveUpdate;
+
+    // The inventory this session is rendered into, set once it is open
+    @Setter private volatile Inventory inventory;
+
+    // What was last placed in each slot of that inventory, reset when the menu is opened
+    @Setter private volatile ViewerSlots viewerSlots;
+
+    // Database browse state: the page on screen and the cursor each reached page starts after
+    @Setter private volatile ListingPage browsePage;
+    @Getter(AccessLevel.NONE) private final List<ListingCursor> pageCursors = new ArrayList<>(Collections.singletonList(null));
+    @Getter(AccessLevel.NONE) private final AtomicLong browseRequest = new AtomicLong();
+
+    /**
+     * Replace the page snapshot after a render
+     */
+    public void publishPage(int page, int maxPage, Map<Integer, Long> slotListings) {
+        publishPage(page, maxPage, slotListings, List.of(), false);
+    }
+
+    /**
+     * Replace the page snapshot after a render that showed listings
+     *
+     * @param listings The listings on the page, in sort order
+     * @param pageFull Whether the page has no room left, so listings sorted after its last one belong to later pages
+     */
+    public void publishPage(int page, int maxPage, Map<Integer, Long> slotListings,
+                            List<MarketplaceListing> listings, boolean pageFull) {
+        this.page = page;
+        this.maxPage = maxPage;
+        this.slotListings = Map.copyOf(slotListings);
+        this.firstListing = listings.isEmpty() ? null : listings.get(0);
+        this.lastListing = listings.isEmpty() ? null : listings.get(listings.size() - 1);
+        this.pageFull = pageFull;
+
+        Set<UUID> pageSellers = new HashSet<>();
+        for (MarketplaceListing listing : listings) {
+            pageSellers.add(listing.getSellerUuid());
+        }
+        this.sellers = Set.copyOf(pageSellers);
+    }
+
+    /**
+     * Whether the rendered page shows a listing
+     */
+    public boolean showsListing(long listingId) {
+        return slotListings.containsValue(listingId);
+    }
+
+    /**
+     * Whether the rendered page shows a listing by any of the given sellers
+     */
+    public boolean showsSellers(Set<UUID> sellerUuids) {
+        for (UUID sellerUuid : sellerUuids) {
+            if (sellers.contains(sellerUuid)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ask for a live update; requests made before it is taken are merged into one
+     */
+    public void requestLiveUpdate() {
+        liveUpdatePending.set(true);
+    }
+
+    /**
+     * Take the pending live update, recording when it was taken
+     *
+     * @return False if no update was pending
+     */
+    public boolean takeLiveUpdate(long nowMillis) {
+        if (!liveUpdatePending.compareAndSet(true, false)) {
+            return false;
+        }
+        lastLiveUpdate = nowMillis;
+        return true;
+    }
+
+    /**
+     * Get the id of the listing shown in a slot of the rendered page
+     */
+    public Long getListingId(int slot) {
+        return slotListings.get(slot);
+    }
+
+    /**
+     * Forget every database page, used when the sort changes or the menu is reopened
+     */
+    public synchronized void resetBrowse() {
+        browsePage = null;
+        pageCursors.clear();
+        pageCursors.add(null);
+    }
+
+    /**
+     * Get the cursor a database page starts after, null for the first page
+     */
+    public synchronized ListingCursor getPageCursor(int page) {
+        return page < pageCursors.size() ? pageCursors.get(page) : null;
+    }
+
+    /**
+     * Remember where a database page starts, discarding cursors past it
+     */
+    public synchronized void setPageCursor(int page, ListingCursor cursor) {
+        while (pageCursors.size() > page) {
+            pageCursors.remove(pageCursors.size() - 1);
+        }
+        while (pageCursors.size() < page) {
+            pageCursors.add(null);
+        }
+        pageCursors.add(cursor);
+    }
+
+    /**
+     * Start a new page request, superseding any still in flight
+     *
+     * @return The id of the request
+     */
+    public long nextBrowseRequest() {
+        return browseRequest.incrementAndGet();
+    }
+
+    public boolean isCurrentBrowseRequest(long request) {
+        return browseRequest.get() == request;
+    }
+}
@@ -3,73 +3,96 @@ package io.quagmire.itemmarketplace.menu;
 import io.quagmire.core.menu.linked.LinkedMenu;
 import io.quagmire.core.utilities.item.ItemStackConfiguration;
 import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.manager.ListingChangeListener;
+import io.quagmire.itemmarketplace.manager.browse.ListingPage;
+import io.quagmire.itemmarketplace.manager.index.SortedListingIndex;
 import io.quagmire.itemmarketplace.messages.Message;
 import io.quagmire.itemmarketplace.model.MarketplaceListing;
-import io.quagmire.itemmarketplace.model.MarketplaceTransaction;
 import io.quagmire.itemmarketplace.sort.ListingSortType;
-import org.bukkit.ChatColor;
-import org.bukkit.Material;
+import lombok.Getter;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.jetbrains.annotations.NotNull;
 
-import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
-public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
-    private final NumberFormat numberFormat = NumberFormat.getInstance();
-    private final DecimalFormat decimalFormat;
-    private final Map<Integer, MarketplaceListing> pageListings;
+/**
+ * Browses every active listing. Each viewer has their own session holding their
+ * sort, search, page and the listing shown in each slot, evicted when they close
+ * the menu. Listings entering or leaving memory only update the viewers whose
+ * page they affect, at most once per tick and once per live update interval.
+ */
+public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> implements ListingChangeListener {
+    private final ListingItemRenderer renderer;
     
-    // Store current page by player UUID
-    private final Map<UUID, Integer> playerPages;
+    // Store each viewer's menu session by player UUID
+    private final Map<UUID, ListingMenuSession> sessions;
     
-    private int maxPage = 0;
     private static final int ITEMS_PER_PAGE = 45; // Adjust as needed
     private static final int NEXT_PAGE_SLOT = 53; // Bottom right corner
     private static final int PREV_PAGE_SLOT = 45; // Bottom left corner
     private static final int SORT_SLOT = 49; // Middle bottom
+    private static final int MENU_SIZE = 54;
+    private static final int MAX_CACHED_BUTTONS = 256;
+    
+    // The slots this menu fills itself: the listing grid and the navigation row buttons
+    private static final int[] MANAGED_SLOTS = managedSlots();
     
     // Menu configuration items
     private ItemStack noListingsItem;
+    private ItemStack loadingItem;
     private ItemStack errorItem;
     private ItemStack prevPageButton;
     private ItemStack nextPageButton;
     private ItemStack sortingButton;
     
-    private ListingSortType currentSort = ListingSortType.NEWEST;
+    private volatile long liveUpdateIntervalMillis;
+    
+    // Rendered navigation buttons, shared so an unchanged button is never sent again
+    private final Map<ButtonKey, ItemStack> buttonCache;
+    
+    // Re-renders run at most once per tick per viewer, however many clicks and changes ask for one
+    @Getter private final MenuRefreshScheduler refreshScheduler;
     
     public ListingsMenu(ItemMarketplacePlugin plugin, String name) {
         super(plugin, name);
         
-        pageListings = new ConcurrentHashMap<>();
-        playerPages = new ConcurrentHashMap<>();
-        decimalFormat = new DecimalFormat("#,##0.00");
-        decimalFormat.setMaximumFractionDigits(2);
+        renderer = plugin.getListingItemRenderer();
+        sessions = new ConcurrentHashMap<>();
+        refreshScheduler = new MenuRefreshScheduler(plugin, this::renderIfOpen);
+        buttonCache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ButtonKey, ItemStack> eldest) {
+                return size() > MAX_CACHED_BUTTONS;
+            }
+        });
+    }
+    
+    private static int[] managedSlots() {
+        int[] slots = new int[ITEMS_PER_PAGE + 3];
+        for (int slot = 0; slot < ITEMS_PER_PAGE; slot++) {
+            slots[slot] = slot;
+        }
+        slots[ITEMS_PER_PAGE] = PREV_PAGE_SLOT;
+        slots[ITEMS_PER_PAGE + 1] = SORT_SLOT;
+        slots[ITEMS_PER_PAGE + 2] = NEXT_PAGE_SLOT;
+        return slots;
     }
     
     @Override
     public void reload(FileConfiguration config) {
         try {
             super.reload(config);
-            
-            // Clear current page listings
-            pageListings.clear();
+            liveUpdateIntervalMillis = Math.max(0L, plugin.getConfig().getLong("menus.live-update-interval-millis", 500L));
+            buttonCache.clear();
             
             // Load menu items from configuration
             ConfigurationSection menuItems = config.getConfigurationSection("menu-items");
@@ -84,38 +107,25 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
     private void loadMenuItems(ConfigurationSection menuItems) {
         // Load item configurations with fallbacks handled by ItemStackConfiguration
         noListingsItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("no-listings"));
+        loadingItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("loading"));
         errorItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("error"));
         prevPageButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("prev-page"));
         nextPageButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("next-page"));
         sortingButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("sort"));
-        
-        // Update the sort button's lore to show current sort type
-        if (sortingButton != null) {
-            ItemMeta meta = sortingButton.getItemMeta();
-            if (meta != null && meta.hasLore()) {
-                List<String> lore = meta.getLore();
-                for (int i = 0; i < lore.size(); i++) {
-                    lore.set(i, lore.get(i).replace("%sort_type%", 
-                        plugin.getMessagesManager().get(currentSort.getMessageKey().name().toLowerCase())));
-                }
-                meta.setLore(lore);
-                sortingButton.setItemMeta(meta);
-            }
-        }
     }
     
     /**
-     * Gets the current page for a player
+     * Gets the session of a player, creating it if needed
      */
-    private int getCurrentPage(Player player) {
-        return playerPages.getOrDefault(player.getUniqueId(), 0);
+    private ListingMenuSession getSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), uuid -> new ListingMenuSession());
     }
     
     /**
-     * Sets the current page for a player
+     * Sets the search term that filters the menu for a player, or clears it when null
      */
-    private void setCurrentPage(Player player, int page) {
-        playerPages.put(player.getUniqueId(), page);
+    public void setSearchTerm(Player player, String searchTerm) {
+        getSession(player).setSearchTerm(searchTerm == null || searchTerm.isBlank() ? null : searchTerm);
     }
     
     @Override
@@ -123,28 +133,20 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
         Map<String, String> placeholders = new HashMap<>();
         
         // Add page information
-        int currentPage = getCurrentPage(player);
-        placeholders.put("current_page", String.valueOf(currentPage + 1));
-        placeholders.put("max_page", String.valueOf(maxPage + 1));
-        placeholders.put("sort_type", plugin.getMessagesManager().get(currentSort.getMessageKey().name().toLowerCase()));
+        ListingMenuSession session = getSession(player);
+        placeholders.put("current_page", String.valueOf(session.getPage() + 1));
+        placeholders.put("max_page", String.valueOf(session.getMaxPage() + 1));
+        placeholders.put("sort_type", plugin.getMessagesManager().get(session.getSort().getMessageKey().name().toLowerCase()));
+        placeholders.put("search_term", session.getSearchTerm() == null ? "" : session.getSearchTerm());
         
         // Get the listing for the slot if it exists
-        MarketplaceListing listing = pageListings.get(slot);
+        Long listingId = session.getListingId(slot);
+        MarketplaceListing listing = listingId == null ? null : findListing(session, listingId);
         if (listing == null) return placeholders;
         
         try {
             // Add listing specific placeholders
-            placeholders.put("price", decimalFormat.format(listing.getPrice()));
-            
-            OfflinePlayer seller = plugin.getServer().getOfflinePlayer(listing.getSellerUuid());
-            String sellerName = seller.getName() != null ? seller.getName() : "Unknown";
-            placeholders.put("seller", sellerName);
-            
-            placeholders.put("amount", numberFormat.format(listing.getItemStack().getAmount()));
-            placeholders.put("time_listed", formatTimeListed(listing.getCreateDateUtc()));
-            placeholders.put("expiry_time", listing.getExpiryDateUtc() != null ? 
-                formatExpiryTime(listing.getExpiryDateUtc()) : 
-                plugin.getMessagesManager().get(Message.LISTING_NEVER_EXPIRES.name().toLowerCase()));
+            placeholders.putAll(renderer.getPlaceholders(listing, true));
         } catch (Exception e) {
             plugin.getLogger().warning("Error getting placeholders for listing: " + e.getMessage());
         }
@@ -154,87 +156,116 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
     
     @Override
     protected Map<Integer, MenuItem> getAdditionalItems(Player player, OfflinePlayer target) {
+        ListingMenuSession session = getSession(player);
+        Map<Integer, ItemStack> slots = buildSlots(session);
+        
+        // A full render replaces every managed slot
+        ViewerSlots viewerSlots = session.getViewerSlots();
+        if (viewerSlots != null) {
+            viewerSlots.record(slots);
+        }
+        
         Map<Integer, MenuItem> items = new HashMap<>();
-        int currentPage = getCurrentPage(player);
+        slots.forEach((slot, item) -> items.put(slot, new MenuItem(item.clone(), null)));
+        return items;
+    }
+    
+    /**
+     * Build the items of the managed slots for a viewer and publish their page
+     * snapshot. Items are shared instances that stay the same while their
+     * content is unchanged, so they must be copied before being modified.
+     */
+    private Map<Integer, ItemStack> buildSlots(ListingMenuSession session) {
+        Map<Integer, ItemStack> items = new HashMap<>();
+        Map<Integer, Long> slotListings = new HashMap<>();
+        ListingSortType sort = session.getSort();
+        int currentPage = session.getPage();
+        int maxPage = 0;
+        List<MarketplaceListing> shown = new ArrayList<>();
+        boolean pageFull = false;
         
-        try {
-            // Get all listings from manager
-            List<MarketplaceListing> listings = getSortedListings(plugin.getListingManager().getAllListings());
-            
-            // Handle empty listings
-            if (listings.isEmpty() && noListingsItem != null) {
-                items.put(22, new MenuItem(noListingsItem.clone(), null));
-                return items;
+        // The startup load failed, so the listings in memory are incomplete
+        if (plugin.getListingManager().isLoadFailed()) {
+            if (errorItem != null) {
+                items.put(22, errorItem);
             }
-            
-            // Calculate max pages
-            maxPage = (int) Math.ceil(listings.size() / (double) ITEMS_PER_PAGE) - 1;
-            maxPage = Math.max(0, maxPage); // Ensure at least one page
-            
-            // Ensure current page is valid
-            if (currentPage > maxPage) {
-                currentPage = maxPage;
-                setCurrentPage(player, currentPage);
+            session.publishPage(currentPage, maxPage, slotListings);
+            return items;
+        }
+        
+        // Listings are still streaming in from the database
+        if (!plugin.getListingManager().isLoaded() && loadingItem != null) {
+            items.put(22, loadingItem);
+            session.publishPage(currentPage, maxPage, slotListings);
+            return items;
+        }
+        
+        // The database page for this viewer has not arrived yet
+        ListingPage browsePage = session.getBrowsePage();
+        if (plugin.getListingManager().isDatabaseBrowse() && browsePage == null) {
+            if (loadingItem != null) {
+                items.put(22, loadingItem);
             }
-            
-            // Calculate start and end indices for current page
-            int startIndex = currentPage * ITEMS_PER_PAGE;
-            int endIndex = Math.min(startIndex + ITEMS_PER_PAGE, listings.size());
-            
-            // Clear current page listings
-            pageListings.clear();
+            session.publishPage(currentPage, maxPage, slotListings);
+            return items;
+        }
+        
+        try {
+            List<MarketplaceListing> listings;
+            if (plugin.getListingManager().isDatabaseBrowse()) {
+                // Pages come from the database without counting the catalog, so only the next page is known
+                if (browsePage.listings().isEmpty() && currentPage == 0 && noListingsItem != null) {
+                    items.put(22, noListingsItem);
+                    session.publishPage(0, 0, slotListings);
+                    return items;
+                }
+                listings = browsePage.listings();
+                maxPage = browsePage.hasNext() ? currentPage + 1 : currentPage;
+            } else {
+                // Search results are small enough to sort on demand, the full catalog is served from the index
+                String searchTerm = session.getSearchTerm();
+                List<MarketplaceListing> searchResults = searchTerm == null ? null :
+                    plugin.getListingManager().searchListings(searchTerm, sort);
+                int listingCount = searchResults == null ? plugin.getListingManager().getListingCount() : searchResults.size();
+                
+                // Handle empty listings
+                if (listingCount == 0 && noListingsItem != null) {
+                    items.put(22, noListingsItem);
+                    session.publishPage(0, 0, slotListings);
+                    return items;
+                }
+                
+                // Calculate max pages
+                maxPage = (int) Math.ceil(listingCount / (double) ITEMS_PER_PAGE) - 1;
+                maxPage = Math.max(0, maxPage); // Ensure at least one page
+                
+                // Ensure current page is valid
+                currentPage = Math.min(currentPage, maxPage);
+                
+                // Fetch only the listings shown on the current page
+                int startIndex = currentPage * ITEMS_PER_PAGE;
+                listings = searchResults == null ?
+                    plugin.getListingManager().page(sort, startIndex, ITEMS_PER_PAGE) :
+                    searchResults.subList(startIndex, Math.min(startIndex + ITEMS_PER_PAGE, searchResults.size()));
+            }
+            pageFull = listings.size() >= ITEMS_PER_PAGE;
             
             // Add listings for current page
-            for (int i = startIndex; i < endIndex; i++) {
+            for (int i = 0; i < listings.size(); i++) {
                 MarketplaceListing listing = listings.get(i);
                 if (listing == null || !listing.isActive()) continue;
                 
-                int slot = (i - startIndex);
+                int slot = i;
                 
                 try {
                     // Create item display for the listing
-                    ItemStack displayItem = listing.getItemStack().clone();
-                    if (displayItem == null || displayItem.getType() == Material.AIR) {
-                        plugin.getLogger().warning("Invalid item in listing ID: " + listing.getListingId());
-                        continue;
-                    }
-                    
-                    // Add lore with listing details
-                    List<String> lore = new ArrayList<>();
-                    if (displayItem.hasItemMeta() && displayItem.getItemMeta().hasLore()) {
-                        lore.addAll(displayItem.getItemMeta().getLore());
-                    }
-                    
-                    // Add listing information to lore
-                    OfflinePlayer seller = plugin.getServer().getOfflinePlayer(listing.getSellerUuid());
-                    String sellerName = seller.getName() != null ? seller.getName() : "Unknown";
-                    
-                    // Prepare placeholders for replacement
-                    Map<String, String> listingPlaceholders = new HashMap<>();
-                    listingPlaceholders.put("seller", sellerName);
-                    listingPlaceholders.put("price", decimalFormat.format(listing.getPrice()));
-                    listingPlaceholders.put("time_listed", formatTimeListed(listing.getCreateDateUtc()));
-                    
-                    // Add listing information lines
-                    lore.add(replacePlaceholders("§7Seller: §f" + sellerName, listingPlaceholders));
-                    lore.add(replacePlaceholders("§7Price: §f" + decimalFormat.format(listing.getPrice()), listingPlaceholders));
-                    lore.add(replacePlaceholders("§7Listed: §f" + formatTimeListed(listing.getCreateDateUtc()), listingPlaceholders));
-                    
-                    // Add expiry info if exists
-                    if (listing.getExpiryDateUtc() != null) {
-                        listingPlaceholders.put("expiry_time", formatExpiryTime(listing.getExpiryDateUtc()));
-                        lore.add(replacePlaceholders("§7Expires: §f" + formatExpiryTime(listing.getExpiryDateUtc()), listingPlaceholders));
-                    }
-                    
-                    lore.add("§eClick to purchase");
+                    ItemStack displayItem = renderer.renderShared(listing, true, Message.LISTING_CLICK_TO_PURCHASE);
+                    if (displayItem == null) continue;
                     
-                    ItemMeta meta = displayItem.getItemMeta();
-                    meta.setLore(lore);
-                    displayItem.setItemMeta(meta);
-                    
-                    // Add to menu and track in pageListings
-                    items.put(slot, new MenuItem(displayItem, null));
-                    pageListings.put(slot, listing);
+                    // Add to menu and track in this viewer's page snapshot
+                    items.put(slot, displayItem);
+                    slotListings.put(slot, listing.getListingId());
+                    shown.add(listing);
                 } catch (Exception e) {
                     plugin.getLogger().warning("Error processing listing ID " + listing.getListingId() + ": " + e.getMessage());
                 }
@@ -242,58 +273,17 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
             
             // Add navigation buttons if needed
             if (maxPage > 0) {
-                // Previous page button
                 if (currentPage > 0 && prevPageButton != null) {
-                    ItemStack prevButton = prevPageButton.clone();
-                    ItemMeta meta = prevButton.getItemMeta();
-                    
-                    if (meta != null && meta.hasLore()) {
-                        List<String> lore = new ArrayList<>(meta.getLore());
-                        for (int i = 0; i < lore.size(); i++) {
-                            lore.set(i, lore.get(i).replace("%current_page%", String.valueOf(currentPage + 1))
-                                                  .replace("%max_page%", String.valueOf(maxPage + 1)));
-                        }
-                        meta.setLore(lore);
-                        prevButton.setItemMeta(meta);
-                    }
-                    
-                    items.put(PREV_PAGE_SLOT, new MenuItem(prevButton, null));
+                    items.put(PREV_PAGE_SLOT, getButton(PREV_PAGE_SLOT, prevPageButton, session, currentPage, maxPage));
                 }
-                
-                // Next page button
                 if (currentPage < maxPage && nextPageButton != null) {
-                    ItemStack nextButton = nextPageButton.clone();
-                    ItemMeta meta = nextButton.getItemMeta();
-                    
-                    if (meta != null && meta.hasLore()) {
-                        List<String> lore = new ArrayList<>(meta.getLore());
-                        for (int i = 0; i < lore.size(); i++) {
-                            lore.set(i, lore.get(i).replace("%current_page%", String.valueOf(currentPage + 1))
-                                                  .replace("%max_page%", String.valueOf(maxPage + 1)));
-                        }
-                        meta.setLore(lore);
-                        nextButton.setItemMeta(meta);
-                    }
-                    
-                    items.put(NEXT_PAGE_SLOT, new MenuItem(nextButton, null));
+                    items.put(NEXT_PAGE_SLOT, getButton(NEXT_PAGE_SLOT, nextPageButton, session, currentPage, maxPage));
                 }
             }
             
             // Add sort button
             if (sortingButton != null) {
-                ItemStack sortButton = sortingButton.clone();
-                ItemMeta sortMeta = sortButton.getItemMeta();
-                
-                if (sortMeta != null && sortMeta.hasLore()) {
-                    List<String> lore = new ArrayList<>(sortMeta.getLore());
-                    for (int i = 0; i < lore.size(); i++) {
-                        lore.set(i, lore.get(i).replace("%sort_type%", plugin.getMessagesManager().get(currentSort.getMessageKey().name().toLowerCase())));
-                    }
-                    sortMeta.setLore(lore);
-                    sortButton.setItemMeta(sortMeta);
-                }
-                
-                items.put(SORT_SLOT, new MenuItem(sortButton, null));
+                items.put(SORT_SLOT, getButton(SORT_SLOT, sortingButton, session, currentPage, maxPage));
             }
             
         } catch (Exception e) {
@@ -302,103 +292,218 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
             
             // Show error item if available
             if (errorItem != null) {
-                items.put(22, new MenuItem(errorItem.clone(), null));
+                items.put(22, errorItem);
             }
         }
         
+        session.publishPage(currentPage, maxPage, slotListings, shown, pageFull);
         return items;
     }
     
-    private String replacePlaceholders(String text, Map<String, String> placeholders) {
-        String result = text;
+    /**
+     * Get a navigation button with the viewer's page and sort filled in. Buttons
+     * are cached, so flipping back to a page or re-rendering one reuses the
+     * same instance instead of copying and re-loring the template.
+     */
+    private ItemStack getButton(int slot, ItemStack template, ListingMenuSession session, int currentPage, int maxPage) {
+        ButtonKey key = new ButtonKey(slot, currentPage, maxPage, session.getSort(), session.getSearchTerm());
+        return buttonCache.computeIfAbsent(key, k -> {
+            Map<String, String> placeholders = new HashMap<>();
+            placeholders.put("%current_page%", String.valueOf(currentPage + 1));
+            placeholders.put("%max_page%", String.valueOf(maxPage + 1));
+            placeholders.put("%sort_type%", plugin.getMessagesManager().get(k.sort().getMessageKey().name().toLowerCase()));
+            placeholders.put("%search_term%", k.searchTerm() == null ? "" : k.searchTerm());
+            
+            ItemStack button = template.clone();
+            ItemMeta meta = button.getItemMeta();
+            if (meta != null) {
+                if (meta.hasDisplayName()) {
+                    meta.setDisplayName(replace(meta.getDisplayName(), placeholders));
+                }
+                if (meta.hasLore()) {
+                    List<String> lore = new ArrayList<>(meta.getLore());
+                    lore.replaceAll(line -> replace(line, placeholders));
+                    meta.setLore(lore);
+                }
+                button.setItemMeta(meta);
+            }
+            return button;
+        });
+    }
+    
+    private static String replace(String text, Map<String, String> placeholders) {
         for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            result = result.replace("%" + entry.getKey() + "%", entry.getValue());
+            text = text.replace(entry.getKey(), entry.getValue());
         }
-        return ChatColor.translateAlternateColorCodes('&', result);
+        return text;
     }
     
-    private List<MarketplaceListing> getSortedListings(List<MarketplaceListing> listings) {
-        if (listings == null || listings.isEmpty()) return new ArrayList<>();
+    @Override
+    public void openInventory(Player player, OfflinePlayer target) {
+        // Reset to first page when opening, and unbind so the close of any previous inventory keeps the session
+        ListingMenuSession session = getSession(player);
+        session.setPage(0);
+        session.setInventory(null);
+        session.setViewerSlots(new ViewerSlots(MANAGED_SLOTS, MENU_SIZE));
+        if (plugin.getListingManager().isDatabaseBrowse()) {
+            session.resetBrowse();
+            loadBrowsePage(player, session, 0);
+        }
+        super.openInventory(player, target);
         
-        switch (currentSort) {
-            case NEWEST:
-                return listings.stream()
-                    .sorted(Comparator.comparing(MarketplaceListing::getCreateDateUtc).reversed())
-                    .collect(Collectors.toList());
-            case OLDEST:
-                return listings.stream()
-                    .sorted(Comparator.comparing(MarketplaceListing::getCreateDateUtc))
-                    .collect(Collectors.toList());
-            case PRICE_LOW:
-                return listings.stream()
-                    .sorted(Comparator.comparing(MarketplaceListing::getPrice))
-                    .collect(Collectors.toList());
-            case PRICE_HIGH:
-                return listings.stream()
-                    .sorted(Comparator.comparing(MarketplaceListing::getPrice).reversed())
-                    .collect(Collectors.toList());
-            default:
-                return listings;
+        Inventory inventory = player.getOpenInventory().getTopInventory();
+        session.setInventory(inventory);
+        session.getViewerSlots().captureLayout(inventory);
+    }
+    
+    /**
+     * Render a viewer whose render was scheduled, unless they have left the menu since
+     */
+    private void renderIfOpen(Player player) {
+        ListingMenuSession session = sessions.get(player.getUniqueId());
+        if (session != null && session.getInventory() != null && session.getInventory() == player.getOpenInventory().getTopInventory()) {
+            update(player);
         }
     }
     
-    private String formatTimeListed(Timestamp timestamp) {
-        if (timestamp == null) return "Unknown";
+    /**
+     * Re-render the menu for a viewer, sending only the slots whose item
+     * changed. A full render is used when the viewer's slots are not tracked
+     * or a slot has to show layout content that has not been seen yet.
+     */
+    private void update(Player player) {
+        ListingMenuSession session = getSession(player);
+        ViewerSlots viewerSlots = session.getViewerSlots();
+        Inventory inventory = session.getInventory();
+        if (viewerSlots == null || inventory == null || inventory != player.getOpenInventory().getTopInventory()) {
+            refresh(player);
+            return;
+        }
         
-        try {
-            LocalDateTime listed = timestamp.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
-            LocalDateTime now = Instant.now().atZone(ZoneId.systemDefault()).toLocalDateTime();
-            
-            long seconds = ChronoUnit.SECONDS.between(listed, now);
-            if (seconds < 60) {
-                return seconds + " seconds ago";
-            }
-            
-            long minutes = ChronoUnit.MINUTES.between(listed, now);
-            if (minutes < 60) {
-                return minutes + " minutes ago";
-            }
-            
-            long hours = ChronoUnit.HOURS.between(listed, now);
-            if (hours < 24) {
-                return hours + " hours ago";
-            }
-            
-            long days = ChronoUnit.DAYS.between(listed, now);
-            return days + " days ago";
-        } catch (Exception e) {
-            return "Unknown";
+        if (viewerSlots.apply(inventory, buildSlots(session)) < 0) {
+            refresh(player);
+            viewerSlots.captureLayout(inventory);
+        }
+    }
+    
+    @Override
+    public void handleClose(InventoryCloseEvent event) {
+        ListingMenuSession session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null && session.getInventory() == event.getInventory()) {
+            sessions.remove(event.getPlayer().getUniqueId(), session);
+            refreshScheduler.forget(event.getPlayer().getUniqueId());
         }
+        super.handleClose(event);
     }
     
-    private String formatExpiryTime(Timestamp timestamp) {
-        if (timestamp == null) return plugin.getMessagesManager().get(Message.LISTING_NEVER_EXPIRES.name().toLowerCase());
+    /**
+     * Get a listing shown to a viewer, from their database page when browsing from the database
+     */
+    private MarketplaceListing findListing(ListingMenuSession session, long listingId) {
+        if (!plugin.getListingManager().isDatabaseBrowse()) {
+            return plugin.getListingManager().getListing(listingId);
+        }
         
-        try {
-            LocalDateTime expiry = timestamp.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
-            LocalDateTime now = Instant.now().atZone(ZoneId.systemDefault()).toLocalDateTime();
-            
-            if (expiry.isBefore(now)) {
-                return plugin.getMessagesManager().get(Message.LISTING_EXPIRED.name().toLowerCase());
+        ListingPage browsePage = session.getBrowsePage();
+        if (browsePage == null) return null;
+        for (MarketplaceListing listing : browsePage.listings()) {
+            if (listing.getListingId() == listingId) return listing;
+        }
+        return null;
+    }
+    
+    /**
+     * Fetch a database page for a viewer and show it once it arrives. The page
+     * on screen stays clickable until then, and a newer request supersedes this one.
+     */
+    private void loadBrowsePage(Player player, ListingMenuSession session, int page) {
+        long request = session.nextBrowseRequest();
+        plugin.getListingManager().getBrowser().fetch(session.getSort(), session.getPageCursor(page)).whenComplete((result, error) ->
+            plugin.getScheduler().runAtEntity(player, (task) -> {
+                if (!session.isCurrentBrowseRequest(request)) return;
+                
+                if (error != null) {
+                    plugin.getLogger().severe("Error loading listings page: " + error.getMessage());
+                    player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_GENERIC.name().toLowerCase()));
+                    if (session.getBrowsePage() == null) {
+                        session.setBrowsePage(ListingPage.EMPTY);
+                    }
+                } else {
+                    session.setPage(page);
+                    session.setBrowsePage(result);
+                    if (result.hasNext()) {
+                        session.setPageCursor(page + 1, result.nextCursor());
+                    }
+                }
+                refreshScheduler.request(player);
+            }));
+    }
+    
+    /**
+     * Re-render the viewers whose page shows a listing by any of the given sellers
+     */
+    public void refreshSellers(Set<UUID> sellerUuids) {
+        sessions.forEach((viewer, session) -> {
+            if (session.showsSellers(sellerUuids)) {
+                session.requestLiveUpdate();
             }
-            
-            long hours = ChronoUnit.HOURS.between(now, expiry);
-            if (hours < 24) {
-                return hours + " hours";
+        });
+    }
+    
+    @Override
+    public void onListingAdded(MarketplaceListing listing) {
+        sessions.forEach((viewer, session) -> {
+            if (session.showsListing(listing.getListingId()) || landsOnPage(session, listing)) {
+                session.requestLiveUpdate();
             }
-            
-            long days = ChronoUnit.DAYS.between(now, expiry);
-            return days + " days";
-        } catch (Exception e) {
-            return "Unknown";
-        }
+        });
     }
     
     @Override
-    public void openInventory(Player player, OfflinePlayer target) {
-        // Reset to first page when opening
-        setCurrentPage(player, 0);
-        super.openInventory(player, target);
+    public void onListingRemoved(MarketplaceListing listing) {
+        sessions.forEach((viewer, session) -> {
+            if (session.showsListing(listing.getListingId())) {
+                session.requestLiveUpdate();
+            }
+        });
+    }
+    
+    /**
+     * Whether a new listing sorts into the range of a viewer's page. Later
+     * pages shift by one as well, but what they show stays valid to click.
+     */
+    private boolean landsOnPage(ListingMenuSession session, MarketplaceListing listing) {
+        MarketplaceListing first = session.getFirstListing();
+        if (first == null) {
+            return session.getPage() == 0;
+        }
+        
+        Comparator<MarketplaceListing> order = SortedListingIndex.comparator(session.getSort());
+        if (order.compare(listing, first) < 0) {
+            return session.getPage() == 0;
+        }
+        return !session.isPageFull() || order.compare(listing, session.getLastListing()) < 0;
+    }
+    
+    /**
+     * Render the live updates that are due, called every tick. Each viewer is
+     * rendered once however many changes hit their page since the last tick,
+     * and no more often than the live update interval.
+     */
+    public void flushLiveUpdates() {
+        long now = System.currentTimeMillis();
+        sessions.forEach((viewer, session) -> {
+            if (now - session.getLastLiveUpdate() < liveUpdateIntervalMillis || !session.takeLiveUpdate(now)) {
+                return;
+            }
+            
+            Player player = plugin.getServer().getPlayer(viewer);
+            if (player == null) {
+                sessions.remove(viewer, session);
+                return;
+            }
+            refreshScheduler.request(player);
+        });
     }
     
     @Override
@@ -439,26 +544,41 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
      * @return true if a navigation button was clicked and handled
      */
     private boolean handleNavigationButtons(Player player, int slot) {
-        int currentPage = getCurrentPage(player);
+        ListingMenuSession session = getSession(player);
+        int currentPage = session.getPage();
+        
+        boolean databaseBrowse = plugin.getListingManager().isDatabaseBrowse();
         
         // Handle sorting button
         if (slot == SORT_SLOT && sortingButton != null) {
-            currentSort = currentSort.next();
+            session.setSort(session.getSort().next());
             player.playSound(player.getLocation(), "block.note_block.hat", 0.5f, 1.0f);
-            refresh(player);
+            if (databaseBrowse) {
+                session.resetBrowse();
+                loadBrowsePage(player, session, 0);
+            }
+            refreshScheduler.request(player);
             return true;
         }
         
         // Handle pagination buttons
-        if (slot == NEXT_PAGE_SLOT && currentPage < maxPage && nextPageButton != null) {
-            setCurrentPage(player, currentPage + 1);
-            refresh(player);
+        if (slot == NEXT_PAGE_SLOT && currentPage < session.getMaxPage() && nextPageButton != null) {
+            if (databaseBrowse) {
+                loadBrowsePage(player, session, currentPage + 1);
+            } else {
+                session.setPage(currentPage + 1);
+                refreshScheduler.request(player);
+            }
             return true;
         }
         
         if (slot == PREV_PAGE_SLOT && currentPage > 0 && prevPageButton != null) {
-            setCurrentPage(player, currentPage - 1);
-            refresh(player);
+            if (databaseBrowse) {
+                loadBrowsePage(player, session, currentPage - 1);
+            } else {
+                session.setPage(currentPage - 1);
+                refreshScheduler.request(player);
+            }
             return true;
         }
         
@@ -470,37 +590,44 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
      * @return true if a listing was clicked and purchase was attempted
      */
     private boolean handleListingPurchase(Player player, int slot) {
-        MarketplaceListing listing = pageListings.get(slot);
-        if (listing == null) {
+        ListingMenuSession session = getSession(player);
+        Long listingId = session.getListingId(slot);
+        if (listingId == null) {
             return false;
         }
         
         // Check if listing is still active
-        if (!listing.isActive()) {
+        MarketplaceListing listing = findListing(session, listingId);
+        if (listing == null || !listing.isActive()) {
             player.sendMessage(plugin.getMessagesManager().get(Message.LISTING_INACTIVE.name().toLowerCase()));
             player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
-            refresh(player);
+            refreshScheduler.request(player);
             return true;
         }
         
-        // Process purchase
-        try {
-            Optional<MarketplaceTransaction> transaction = plugin.getListingManager().purchaseItem(player, listing.getListingId());
-            
-            if (transaction.isPresent()) {
-                sendPurchaseSuccessMessage(player, listing);
-            } else {
-                player.sendMessage(plugin.getMessagesManager().get(Message.LISTING_PURCHASE_FAILED.name().toLowerCase()));
-                player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
-            }
-        } catch (SQLException e) {
-            player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_PROCESSING_PURCHASE.name().toLowerCase()));
-            plugin.getLogger().severe("Error processing purchase: " + e.getMessage());
-            player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
-        }
+        // Process purchase; the listing leaves the menu now and the result arrives once it is persisted
+        plugin.getListingManager().purchaseItem(player, listing).whenComplete((transaction, error) ->
+            plugin.getScheduler().runAtEntity(player, (task) -> {
+                if (error != null) {
+                    player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_PROCESSING_PURCHASE.name().toLowerCase()));
+                    plugin.getLogger().severe("Error processing purchase: " + error.getMessage());
+                    player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+                    refreshScheduler.request(player);
+                } else if (transaction.isPresent()) {
+                    sendPurchaseSuccessMessage(player, listing);
+                } else {
+                    player.sendMessage(plugin.getMessagesManager().get(Message.LISTING_PURCHASE_FAILED.name().toLowerCase()));
+                    player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+                }
+                
+                // A database page still holds the listing until it is fetched again
+                if (plugin.getListingManager().isDatabaseBrowse()) {
+                    loadBrowsePage(player, session, session.getPage());
+                }
+            }));
         
         // Always refresh after a purchase attempt
-        refresh(player);
+        refreshScheduler.request(player);
         return true;
     }
     
@@ -509,12 +636,15 @@ public class ListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
      */
     private void sendPurchaseSuccessMessage(Player player, MarketplaceListing listing) {
         Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("amount", String.valueOf(listing.getItemStack().getAmount()));
-        placeholders.put("price", decimalFormat.format(listing.getPrice()));
+        placeholders.put("amount", String.valueOf(listing.getAmount()));
+        placeholders.put("price", renderer.formatPrice(listing.getPrice()));
         
-        player.sendMessage(replacePlaceholders(
+        player.sendMessage(renderer.replacePlaceholders(
             plugin.getMessagesManager().get(Message.LISTING_PURCHASE_SUCCESS.name().toLowerCase()),
             placeholders));
         player.playSound(player.getLocation(), "entity.player.levelup", 1.0f, 1.0f);
     }
-} 
\ No newline at end of file
+    
+    private record ButtonKey(int slot, int page, int maxPage, ListingSortType sort, String searchTerm) {
+    }
+}
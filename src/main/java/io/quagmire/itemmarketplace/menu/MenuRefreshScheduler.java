@@ -0,0 +1,78 @@
+package io.quagmire.itemmarketplace.menu;
+
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces the re-renders of a menu. A request marks the viewer dirty and the
+ * render runs on the viewer's own entity thread on a later tick, once however
+ * many requests arrive before it. The mark is cleared as the render starts, so
+ * a request made during a render schedules the next one and a viewer is
+ * rendered at most once per tick.
+ */
+public class MenuRefreshScheduler {
+    // A mark this old belongs to a render that never ran, such as for a player who left
+    private static final long STALE_MILLIS = 5_000L;
+
+    private final ItemMarketplacePlugin plugin;
+    private final Consumer<Player> render;
+    private final Map<UUID, Long> dirty = new ConcurrentHashMap<>();
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+
+    public MenuRefreshScheduler(ItemMarketplacePlugin plugin, Consumer<Player> render) {
+        this.plugin = plugin;
+        this.render = render;
+    }
+
+    /**
+     * Ask for a viewer to be rendered, merged with any render still pending for them
+     */
+    public void request(Player player) {
+        requested.increment();
+
+        UUID viewer = player.getUniqueId();
+        long now = System.currentTimeMillis();
+        Long markedAt = dirty.putIfAbsent(viewer, now);
+        if (markedAt != null) {
+            if (now - markedAt < STALE_MILLIS) {
+                coalesced.increment();
+                return;
+            }
+            dirty.put(viewer, now);
+        }
+
+        plugin.getScheduler().runAtEntity(player, (task) -> {
+            dirty.remove(viewer);
+            executed.increment();
+            render.accept(player);
+        });
+    }
+
+    /**
+     * Drop a viewer's pending mark, used when they close the menu
+     */
+    public void forget(UUID viewer) {
+        dirty.remove(viewer);
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(requested.sum(), coalesced.sum(), executed.sum());
+    }
+
+    /**
+     * @param requested Renders asked for
+     * @param coalesced Requests merged into a render already pending
+     * @param executed Renders run
+     */
+    public record Metrics(long requested, long coalesced, long executed) {
+    }
+}
@@ -0,0 +1,335 @@
+package io.quagmire.itemmarketplace.menu;
+
+import io.quagmire.core.menu.linked.LinkedMenu;
+import io.quagmire.core.utilities.item.ItemStackConfiguration;
+import io.quagmire.itemmarketplace.ItemMarketplacePlugin;
+import io.quagmire.itemmarketplace.messages.Message;
+import io.quagmire.itemmarketplace.model.MarketplaceListing;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shows a seller their own active listings, served from the per-seller index
+ * or, when browsing from the database, read once per open, and lets them cancel
+ * a listing to reclaim the item
+ */
+public class MyListingsMenu extends LinkedMenu<ItemMarketplacePlugin> {
+    private final ListingItemRenderer renderer;
+
+    // Store current page and the listing id shown in each slot by player UUID
+    private final Map<UUID, Integer> playerPages;
+    private final Map<UUID, Map<Integer, Long>> playerSlots;
+
+    // Listings read from the database for each viewer when nothing is held in memory
+    private final Map<UUID, List<MarketplaceListing>> playerListings;
+
+    private static final int ITEMS_PER_PAGE = 45;
+    private static final int NEXT_PAGE_SLOT = 53;
+    private static final int PREV_PAGE_SLOT = 45;
+
+    // Menu configuration items
+    private ItemStack noListingsItem;
+    private ItemStack loadingItem;
+    private ItemStack errorItem;
+    private ItemStack prevPageButton;
+    private ItemStack nextPageButton;
+
+    public MyListingsMenu(ItemMarketplacePlugin plugin, String name) {
+        super(plugin, name);
+
+        renderer = plugin.getListingItemRenderer();
+        playerPages = new ConcurrentHashMap<>();
+        playerSlots = new ConcurrentHashMap<>();
+        playerListings = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void reload(FileConfiguration config) {
+        try {
+            super.reload(config);
+
+            ConfigurationSection menuItems = config.getConfigurationSection("menu-items");
+            if (menuItems != null) {
+                noListingsItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("no-listings"));
+                loadingItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("loading"));
+                errorItem = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("error"));
+                prevPageButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("prev-page"));
+                nextPageButton = ItemStackConfiguration.getItemStack(menuItems.getConfigurationSection("next-page"));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error reloading my listings menu: " + e.getMessage());
+        }
+    }
+
+    private int getCurrentPage(Player player) {
+        return playerPages.getOrDefault(player.getUniqueId(), 0);
+    }
+
+    /**
+     * Get the seller's listings, or null while they are still being read from the database
+     */
+    private List<MarketplaceListing> getListings(Player player) {
+        if (plugin.getListingManager().isDatabaseBrowse()) {
+            return playerListings.get(player.getUniqueId());
+        }
+        return plugin.getListingManager().getListingsBySeller(player.getUniqueId());
+    }
+
+    private int getListingCount(Player player) {
+        if (plugin.getListingManager().isDatabaseBrowse()) {
+            return playerListings.getOrDefault(player.getUniqueId(), Collections.emptyList()).size();
+        }
+        return plugin.getListingManager().getListingCount(player.getUniqueId());
+    }
+
+    private MarketplaceListing findListing(Player player, long listingId) {
+        if (!plugin.getListingManager().isDatabaseBrowse()) {
+            return plugin.getListingManager().getListing(listingId);
+        }
+        for (MarketplaceListing listing : playerListings.getOrDefault(player.getUniqueId(), Collections.emptyList())) {
+            if (listing.getListingId() == listingId) return listing;
+        }
+        return null;
+    }
+
+    private int getMaxPage(Player player) {
+        int count = getListingCount(player);
+        return Math.max(0, (int) Math.ceil(count / (double) ITEMS_PER_PAGE) - 1);
+    }
+
+    @Override
+    protected Map<String, String> getPlaceholders(Player player, OfflinePlayer target, int slot) {
+        Map<String, String> placeholders = new HashMap<>();
+
+        int limit = plugin.getListingManager().getListingLimit();
+        placeholders.put("current_page", String.valueOf(getCurrentPage(player) + 1));
+        placeholders.put("max_page", String.valueOf(getMaxPage(player) + 1));
+        placeholders.put("listing_count", String.valueOf(getListingCount(player)));
+        placeholders.put("listing_limit", limit == 0 ?
+            plugin.getMessagesManager().get(Message.LISTING_LIMIT_UNLIMITED.name().toLowerCase()) :
+            String.valueOf(limit));
+
+        Long listingId = playerSlots.getOrDefault(player.getUniqueId(), Collections.emptyMap()).get(slot);
+        MarketplaceListing listing = listingId == null ? null : findListing(player, listingId);
+        if (listing == null) return placeholders;
+
+        try {
+            placeholders.putAll(renderer.getPlaceholders(listing, false));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error getting placeholders for listing: " + e.getMessage());
+        }
+
+        return placeholders;
+    }
+
+    @Override
+    protected Map<Integer, MenuItem> getAdditionalItems(Player player, OfflinePlayer target) {
+        Map<Integer, MenuItem> items = new HashMap<>();
+        Map<Integer, Long> slots = new HashMap<>();
+        playerSlots.put(player.getUniqueId(), slots);
+
+        // The startup load failed, so the listings in memory are incomplete
+        if (plugin.getListingManager().isLoadFailed()) {
+            if (errorItem != null) {
+                items.put(22, new MenuItem(errorItem.clone(), null));
+            }
+            return items;
+        }
+
+        // Listings are still streaming in from the database
+        List<MarketplaceListing> listings = plugin.getListingManager().isLoaded() ? getListings(player) : null;
+        if (listings == null) {
+            if (loadingItem != null) {
+                items.put(22, new MenuItem(loadingItem.clone(), null));
+            }
+            return items;
+        }
+
+        try {
+            if (listings.isEmpty() && noListingsItem != null) {
+                items.put(22, new MenuItem(noListingsItem.clone(), null));
+                return items;
+            }
+
+            int maxPage = getMaxPage(player);
+            int currentPage = Math.min(getCurrentPage(player), maxPage);
+            playerPages.put(player.getUniqueId(), currentPage);
+
+            int startIndex = currentPage * ITEMS_PER_PAGE;
+            int endIndex = Math.min(startIndex + ITEMS_PER_PAGE, listings.size());
+            for (int i = startIndex; i < endIndex; i++) {
+                MarketplaceListing listing = listings.get(i);
+                int slot = i - startIndex;
+
+                try {
+                    ItemStack displayItem = renderer.render(listing, false, Message.LISTING_CLICK_TO_CANCEL);
+                    if (displayItem == null) continue;
+
+                    items.put(slot, new MenuItem(displayItem, null));
+                    slots.put(slot, listing.getListingId());
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Error processing listing ID " + listing.getListingId() + ": " + e.getMessage());
+                }
+            }
+
+            if (currentPage > 0 && prevPageButton != null) {
+                items.put(PREV_PAGE_SLOT, new MenuItem(pageButton(prevPageButton, currentPage, maxPage), null));
+            }
+            if (currentPage < maxPage && nextPageButton != null) {
+                items.put(NEXT_PAGE_SLOT, new MenuItem(pageButton(nextPageButton, currentPage, maxPage), null));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error generating my listings menu: " + e.getMessage());
+            e.printStackTrace();
+
+            if (errorItem != null) {
+                items.put(22, new MenuItem(errorItem.clone(), null));
+            }
+        }
+
+        return items;
+    }
+
+    private ItemStack pageButton(ItemStack template, int currentPage, int maxPage) {
+        ItemStack button = template.clone();
+        ItemMeta meta = button.getItemMeta();
+
+        if (meta != null && meta.hasLore()) {
+            List<String> lore = new ArrayList<>(meta.getLore());
+            for (int i = 0; i < lore.size(); i++) {
+                lore.set(i, lore.get(i).replace("%current_page%", String.valueOf(currentPage + 1))
+                                      .replace("%max_page%", String.valueOf(maxPage + 1)));
+            }
+            meta.setLore(lore);
+            button.setItemMeta(meta);
+        }
+        return button;
+    }
+
+    @Override
+    public void openInventory(Player player, OfflinePlayer target) {
+        playerPages.put(player.getUniqueId(), 0);
+        if (plugin.getListingManager().isDatabaseBrowse()) {
+            loadListings(player);
+        }
+        super.openInventory(player, target);
+    }
+
+    /**
+     * Read the seller's listings from the database and show them once they arrive
+     */
+    private void loadListings(Player player) {
+        playerListings.remove(player.getUniqueId());
+        plugin.getListingManager().fetchListingsBySeller(player.getUniqueId()).whenComplete((listings, error) ->
+            plugin.getScheduler().runAtEntity(player, (task) -> {
+                if (error != null) {
+                    plugin.getLogger().severe("Error loading listings of " + player.getName() + ": " + error.getMessage());
+                    player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_GENERIC.name().toLowerCase()));
+                    playerListings.put(player.getUniqueId(), Collections.emptyList());
+                } else {
+                    playerListings.put(player.getUniqueId(), List.copyOf(listings));
+                }
+                refresh(player);
+            }));
+    }
+
+    @Override
+    public void handleClick(InventoryClickEvent event) {
+        Player player = (Player) event.getWhoClicked();
+
+        if (event.getClickedInventory() == null ||
+            !event.getClickedInventory().equals(event.getView().getTopInventory())) {
+            return;
+        }
+
+        int slot = event.getSlot();
+        int currentPage = getCurrentPage(player);
+
+        try {
+            if (slot == NEXT_PAGE_SLOT && currentPage < getMaxPage(player) && nextPageButton != null) {
+                playerPages.put(player.getUniqueId(), currentPage + 1);
+                refresh(player);
+                return;
+            }
+
+            if (slot == PREV_PAGE_SLOT && currentPage > 0 && prevPageButton != null) {
+                playerPages.put(player.getUniqueId(), currentPage - 1);
+                refresh(player);
+                return;
+            }
+
+            if (handleListingCancel(player, slot)) {
+                return;
+            }
+
+            super.handleClick(event);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error handling menu click: " + e.getMessage());
+            player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_GENERIC.name().toLowerCase()));
+            player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+        }
+    }
+
+    /**
+     * Cancels the clicked listing and hands the item back to the seller
+     * @return true if a listing was clicked and cancellation was attempted
+     */
+    private boolean handleListingCancel(Player player, int slot) {
+        Long listingId = playerSlots.getOrDefault(player.getUniqueId(), Collections.emptyMap()).get(slot);
+        if (listingId == null) {
+            return false;
+        }
+
+        MarketplaceListing listing = findListing(player, listingId);
+        if (listing == null) {
+            player.sendMessage(plugin.getMessagesManager().get(Message.LISTING_CANCEL_FAILED.name().toLowerCase()));
+            player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+            refresh(player);
+            return true;
+        }
+
+        // The item is only handed back once the deactivation has been persisted
+        plugin.getListingManager().cancelListing(listing, player.getUniqueId()).whenComplete((cancelled, error) ->
+            plugin.getScheduler().runAtEntity(player, (task) -> {
+                if (error != null) {
+                    player.sendMessage(plugin.getMessagesManager().get(Message.ERROR_GENERIC.name().toLowerCase()));
+                    plugin.getLogger().severe("Error cancelling listing: " + error.getMessage());
+                    player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+                    refresh(player);
+                } else if (cancelled) {
+                    returnItem(player, listing.getItemStack().clone());
+                    player.sendMessage(plugin.getMessagesManager().get(Message.LISTING_CANCEL_SUCCESS.name().toLowerCase()));
+                    player.playSound(player.getLocation(), "entity.item.pickup", 1.0f, 1.0f);
+                } else {
+                    player.sendMessage(plugin.getMessagesManager().get(Message.LISTING_CANCEL_FAILED.name().toLowerCase()));
+                    player.playSound(player.getLocation(), "entity.villager.no", 1.0f, 1.0f);
+                }
+
+                // Listings read from the database are stale once one was cancelled or sold
+                if (plugin.getListingManager().isDatabaseBrowse()) {
+                    loadListings(player);
+                }
+            }));
+
+        refresh(player);
+        return true;
+    }
+
+    /**
+     * Gives an item to the player, dropping whatever does not fit at their feet
+     */
+    private void returnItem(Player player, ItemStack item) {
+        Map<Integer, ItemStack> overflow = player.getInventory().addItem(item);
+        for (ItemStack remaining : overflow.values()) {
+            player.getWorld().dropItemNaturally(player.getLocation(), remaining);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.quagmire.itemmarketplace.menu;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Map;
+
+/**
+ * Remembers the item last placed in each slot a menu manages for one viewer,
+ * so a re-render only sends the slots whose item changed. Items are compared
+ * by identity: renderers hand out the same instance while its content is
+ * unchanged, and a new instance always counts as a change.
+ *
+ * A managed slot left empty shows whatever the menu layout has there. That
+ * content is captured the first time it is seen, and until it is known for a
+ * slot, emptying the slot needs a full render.
+ */
+public class ViewerSlots {
+    private final int[] managedSlots;
+    private final ItemStack[] placed;
+    private final ItemStack[] layout;
+    private final boolean[] layoutKnown;
+
+    public ViewerSlots(int[] managedSlots, int size) {
+        this.managedSlots = managedSlots;
+        this.placed = new ItemStack[size];
+        this.layout = new ItemStack[size];
+        this.layoutKnown = new boolean[size];
+    }
+
+    /**
+     * Remember the items of a full render
+     */
+    public void record(Map<Integer, ItemStack> items) {
+        for (int slot : managedSlots) {
+            placed[slot] = items.get(slot);
+        }
+    }
+
+    /**
+     * Capture the layout content of the managed slots a full render left empty
+     */
+    public void captureLayout(Inventory inventory) {
+        for (int slot : managedSlots) {
+            if (placed[slot] == null) {
+                captureLayout(inventory, slot);
+            }
+        }
+    }
+
+    /**
+     * Send only the slots whose item changed since the last render
+     *
+     * @return The number of slots sent, or -1 if a full render is needed instead
+     */
+    public int apply(Inventory inventory, Map<Integer, ItemStack> items) {
+        for (int slot : managedSlots) {
+            if (items.get(slot) == null && placed[slot] != null && !layoutKnown[slot]) {
+                return -1;
+            }
+        }
+
+        int sent = 0;
+        for (int slot : managedSlots) {
+            ItemStack item = items.get(slot);
+            if (item == placed[slot]) continue;
+
+            if (item == null) {
+                inventory.setItem(slot, layout[slot]);
+            } else {
+                if (placed[slot] == null && !layoutKnown[slot]) {
+                    captureLayout(inventory, slot);
+                }
+                inventory.setItem(slot, item);
+            }
+            placed[slot] = item;
+            sent++;
+        }
+        return sent;
+    }
+
+    private void captureLayout(Inventory inventory, int slot) {
+        ItemStack current = inventory.getItem(slot);
+        layout[slot] = current == null ? null : current.clone();
+        layoutKnown[slot] = true;
+    }
+}
@@ -19,6 +19,19 @@ public enum Message {
   INVALID_PROPERTY,
   RELOAD_SUCCESS,
   RELOAD_FAILURE,
+  REENCODE_STARTED,
+  REENCODE_RUNNING,
+  REENCODE_FINISHED,
+  MENU_REFRESH_METRICS,
+  
+  // Admin stats messages
+  STATS_HEADER,
+  STATS_DAY,
+  STATS_TOTAL,
+  STATS_TOP_MATERIALS,
+  STATS_TOP_SELLERS,
+  STATS_ENTRY,
+  STATS_EMPTY,
   
   // Marketplace listings menu messages
   SORT_NEWEST,
@@ -35,7 +48,9 @@ public enum Message {
   ERROR_LOADING_LISTINGS,
   ERROR_LOADING_LISTINGS_DESC,
   LISTING_SELLER,
+  LISTING_SELLER_RESOLVING,
   LISTING_PRICE,
+  LISTING_MARKET_PRICE,
   LISTING_LISTED,
   LISTING_EXPIRES,
   LISTING_EXPIRED,
@@ -47,7 +62,34 @@ public enum Message {
   ERROR_PROCESSING_PURCHASE,
   PAGE_PREVIOUS,
   PAGE_NEXT,
-  PAGE_INFO;
+  PAGE_INFO,
+  
+  // Seller listings menu messages
+  LISTING_CLICK_TO_CANCEL,
+  LISTING_CANCEL_SUCCESS,
+  LISTING_CANCEL_FAILED,
+  LISTING_LIMIT_UNLIMITED,
+  
+  // History menu messages
+  HISTORY_BOUGHT_FROM,
+  HISTORY_SOLD_TO,
+  HISTORY_DATE,
+  HISTORY_PURCHASES,
+  HISTORY_SALES,
+  
+  // Search messages
+  SEARCH_TERM_REQUIRED,
+  SEARCH_UNAVAILABLE,
+  
+  // Price statistics messages
+  PRICE_NO_ITEM,
+  PRICE_HEADER,
+  PRICE_WINDOW,
+  PRICE_WINDOW_EMPTY,
+  PRICE_WINDOW_TRUNCATED,
+  PRICE_LISTED,
+  PRICE_NOT_LISTED,
+  PRICE_SEEDING;
 
   private static Map<Message, String> getDefaultValueMapping() {
     Map<Message, String> map = new HashMap<>();
@@ -63,6 +105,19 @@ public enum Message {
     map.put(Message.RELOAD_SUCCESS, "%prefix% &aConfiguration reloaded!");
     map.put(Message.RELOAD_FAILURE, "%prefix% &cConfiguration could not be reloaded!");
     map.put(Message.PLAYER_ONLY, "%prefix% &cOnly players can execute this command!");
+    map.put(Message.REENCODE_STARTED, "%prefix% &aRe-encoding stored items in the background...");
+    map.put(Message.REENCODE_RUNNING, "%prefix% &cA re-encode is already running!");
+    map.put(Message.REENCODE_FINISHED, "%prefix% &aRe-encoded &f%count%&a of &f%total%&a stored items (&f%bytes_before%&a -> &f%bytes_after%&a bytes).");
+    map.put(Message.MENU_REFRESH_METRICS, "%prefix% &eListings menu renders: &f%executed%&e run, &f%coalesced%&e coalesced of &f%requested%&e requested");
+    
+    // Admin stats messages
+    map.put(Message.STATS_HEADER, "%prefix% &eMarketplace sales over the last %days% day(s)");
+    map.put(Message.STATS_DAY, "&7%day%: &f%sales% sales&7, %items% items, %revenue%");
+    map.put(Message.STATS_TOTAL, "&7Total: &f%sales% sales&7, %items% items, %revenue%");
+    map.put(Message.STATS_TOP_MATERIALS, "&eTop items:");
+    map.put(Message.STATS_TOP_SELLERS, "&eTop sellers:");
+    map.put(Message.STATS_ENTRY, "&7%rank%. &f%name% &7- %revenue% (%sales% sales)");
+    map.put(Message.STATS_EMPTY, "&7No sales in this period.");
     
     // Marketplace listings menu messages
     map.put(Message.SORT_NEWEST, "&aNewest First");
@@ -79,7 +134,9 @@ public enum Message {
     map.put(Message.ERROR_LOADING_LISTINGS, "&cError Loading Listings");
     map.put(Message.ERROR_LOADING_LISTINGS_DESC, "&7Please try again later");
     map.put(Message.LISTING_SELLER, "&7Seller: &f%seller%");
+    map.put(Message.LISTING_SELLER_RESOLVING, "&8Loading...");
     map.put(Message.LISTING_PRICE, "&7Price: &f%price%");
+    map.put(Message.LISTING_MARKET_PRICE, "&7Market (%market_window%): &f%market_median% &8each, %market_sales% sales");
     map.put(Message.LISTING_LISTED, "&7Listed: &f%time_listed%");
     map.put(Message.LISTING_EXPIRES, "&7Expires: &f%expiry_time%");
     map.put(Message.LISTING_EXPIRED, "Expired");
@@ -93,6 +150,33 @@ public enum Message {
     map.put(Message.PAGE_NEXT, "&aNext Page");
     map.put(Message.PAGE_INFO, "&7Page %current_page% of %max_page%");
     
+    // Seller listings menu messages
+    map.put(Message.LISTING_CLICK_TO_CANCEL, "&eClick to cancel and reclaim");
+    map.put(Message.LISTING_CANCEL_SUCCESS, "&aYour listing has been cancelled and the item returned.");
+    map.put(Message.LISTING_CANCEL_FAILED, "&cCouldn't cancel this listing. It may have been sold already.");
+    map.put(Message.LISTING_LIMIT_UNLIMITED, "Unlimited");
+    
+    // History menu messages
+    map.put(Message.HISTORY_BOUGHT_FROM, "&7Bought from: &f%seller%");
+    map.put(Message.HISTORY_SOLD_TO, "&7Sold to: &f%buyer%");
+    map.put(Message.HISTORY_DATE, "&7Date: &f%time%");
+    map.put(Message.HISTORY_PURCHASES, "&aPurchases");
+    map.put(Message.HISTORY_SALES, "&aSales");
+    
+    // Search messages
+    map.put(Message.SEARCH_TERM_REQUIRED, "%prefix% &cPlease provide a search term!");
+    map.put(Message.SEARCH_UNAVAILABLE, "%prefix% &cSearch is not available on this server.");
+    
+    // Price statistics messages
+    map.put(Message.PRICE_NO_ITEM, "%prefix% &cHold the item you want to price!");
+    map.put(Message.PRICE_HEADER, "%prefix% &eMarket prices for &f%item% &7(per item)");
+    map.put(Message.PRICE_WINDOW, "&7%window%: &fmedian %median%&7, avg %average%&7, min %min%&7, p25-p75 %p25%-%p75%&7, p90 %p90% &8(%sales% sales, %volume% items)");
+    map.put(Message.PRICE_WINDOW_EMPTY, "&7%window%: &8no sales");
+    map.put(Message.PRICE_WINDOW_TRUNCATED, "&8  %window% figures only cover the last %span% (sample limit reached)");
+    map.put(Message.PRICE_LISTED, "&7Lowest listing: &f%lowest% &8(%listings% listed)");
+    map.put(Message.PRICE_NOT_LISTED, "&7Not currently listed");
+    map.put(Message.PRICE_SEEDING, "&8Sales history is still loading, figures may be incomplete.");
+    
     return map;
   }
 
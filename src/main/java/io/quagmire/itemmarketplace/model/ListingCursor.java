@@ -0,0 +1,14 @@
+package io.quagmire.itemmarketplace.model;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * Position of a listing in a keyset paginated browse. A page starts right after
+ * the cursor of the previous page's last listing.
+ */
+public record ListingCursor(long listingId, BigDecimal price, Timestamp createDateUtc) {
+  public static ListingCursor of(MarketplaceListing listing) {
+    return new ListingCursor(listing.getListingId(), listing.getPrice(), listing.getCreateDateUtc());
+  }
+}
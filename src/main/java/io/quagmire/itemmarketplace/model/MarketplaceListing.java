@@ -1,31 +1,56 @@
 package io.quagmire.itemmarketplace.model;
 
-import io.quagmire.core.utilities.item.ItemStackSerializer;
+import io.quagmire.itemmarketplace.databases.ItemBlobs;
+import io.quagmire.itemmarketplace.databases.ItemCodec;
+import io.quagmire.itemmarketplace.databases.UuidBytes;
+import io.quagmire.itemmarketplace.manager.stats.ItemSignature;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.UUID;
 
+/**
+ * A marketplace listing. The item is held as its serialized bytes and only
+ * materialized into an ItemStack on first access; the materialized stack is
+ * softly cached so the garbage collector can reclaim it under memory pressure.
+ * The material, amount, search keywords and item signature are stored in their
+ * own columns so sorting, filtering, indexing and price statistics never need
+ * the ItemStack.
+ */
 @Getter
 public class MarketplaceListing {
   private final long listingId;
   private final UUID sellerUuid;
-  private final ItemStack itemStack;
+  private final byte[] itemData;
+  private final Material material;
+  private final int amount;
+  private final String searchKeywords;
+  private final String itemSignature;
   private final BigDecimal price;
   private final boolean isActive;
   private final Timestamp createDateUtc;
   private final Timestamp lastUpdateDateUtc;
   private final Timestamp expiryDateUtc;
 
+  @Getter(AccessLevel.NONE)
+  private volatile SoftReference<ItemStack> itemStackCache;
+
   public MarketplaceListing(
     long listingId,
     UUID sellerUuid,
-    ItemStack itemStack,
+    byte[] itemData,
+    Material material,
+    int amount,
+    String searchKeywords,
+    String itemSignature,
     BigDecimal price,
     boolean isActive,
     Timestamp createDateUtc,
@@ -34,7 +59,11 @@ public class MarketplaceListing {
   ) {
     this.listingId = listingId;
     this.sellerUuid = sellerUuid;
-    this.itemStack = itemStack;
+    this.itemData = itemData;
+    this.material = material;
+    this.amount = amount;
+    this.searchKeywords = searchKeywords;
+    this.itemSignature = itemSignature;
     this.price = price;
     this.isActive = isActive;
     this.createDateUtc = createDateUtc;
@@ -42,20 +71,78 @@ public class MarketplaceListing {
     this.expiryDateUtc = expiryDateUtc;
   }
 
-  public static MarketplaceListing deserialize(ResultSet rs) throws SQLException {
-    try {
-      byte[] itemData = rs.getBytes("item_data");
-      ItemStack itemStack = null;
+  public MarketplaceListing(
+    long listingId,
+    UUID sellerUuid,
+    byte[] itemData,
+    ItemStack itemStack,
+    String searchKeywords,
+    String itemSignature,
+    BigDecimal price,
+    boolean isActive,
+    Timestamp createDateUtc,
+    Timestamp lastUpdateDateUtc,
+    Timestamp expiryDateUtc
+  ) {
+    this(listingId, sellerUuid, itemData, itemStack.getType(), itemStack.getAmount(), searchKeywords, itemSignature,
+      price, isActive, createDateUtc, lastUpdateDateUtc, expiryDateUtc);
+    this.itemStackCache = new SoftReference<>(itemStack);
+  }
+
+  /**
+   * Get the listed item, deserializing it on first access
+   */
+  public ItemStack getItemStack() {
+    SoftReference<ItemStack> cache = itemStackCache;
+    ItemStack itemStack = cache != null ? cache.get() : null;
+    if (itemStack == null) {
       try {
-        itemStack = ItemStackSerializer.deserializeItemStack(itemData);
+        itemStack = ItemCodec.deserialize(itemData);
       } catch (IOException e) {
-        throw new SQLException("Failed to deserialize ItemStack", e);
+        throw new IllegalStateException("Failed to deserialize ItemStack for listing " + listingId, e);
+      }
+      itemStackCache = new SoftReference<>(itemStack);
+    }
+    return itemStack;
+  }
+
+  public static MarketplaceListing deserialize(ResultSet rs) throws SQLException {
+    try {
+      byte[] itemData = ItemBlobs.read(rs);
+      String material = rs.getString("material");
+
+      // Rows written before the metadata columns existed are materialized once to recover them
+      if (material == null || Material.getMaterial(material) == null) {
+        ItemStack itemStack;
+        try {
+          itemStack = ItemCodec.deserialize(itemData);
+        } catch (IOException e) {
+          throw new SQLException("Failed to deserialize ItemStack", e);
+        }
+
+        return new MarketplaceListing(
+          rs.getLong("listing_id"),
+          UuidBytes.read(rs, "seller_uuid_bin", "seller_uuid"),
+          itemData,
+          itemStack,
+          rs.getString("search_keywords"),
+          rs.getString("item_signature") != null ? rs.getString("item_signature") : ItemSignature.of(itemStack),
+          rs.getBigDecimal("price"),
+          rs.getBoolean("is_active"),
+          rs.getTimestamp("create_date_utc"),
+          rs.getTimestamp("last_update_date_utc"),
+          rs.getTimestamp("expiry_date_utc")
+        );
       }
-      
+
       return new MarketplaceListing(
         rs.getLong("listing_id"),
-        UUID.fromString(rs.getString("seller_uuid")),
-        itemStack,
+        UuidBytes.read(rs, "seller_uuid_bin", "seller_uuid"),
+        itemData,
+        Material.getMaterial(material),
+        rs.getInt("amount"),
+        rs.getString("search_keywords"),
+        rs.getString("item_signature"),
         rs.getBigDecimal("price"),
         rs.getBoolean("is_active"),
         rs.getTimestamp("create_date_utc"),
@@ -66,4 +153,4 @@ public class MarketplaceListing {
       throw new SQLException("Error deserializing MarketplaceListing", e);
     }
   }
-}
\ No newline at end of file
+}
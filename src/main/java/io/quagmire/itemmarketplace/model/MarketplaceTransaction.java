@@ -1,32 +1,43 @@
 package io.quagmire.itemmarketplace.model;
 
-import io.quagmire.core.utilities.item.ItemStackSerializer;
+import io.quagmire.itemmarketplace.databases.ItemBlobs;
+import io.quagmire.itemmarketplace.databases.ItemCodec;
+import io.quagmire.itemmarketplace.databases.UuidBytes;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.UUID;
 
+/**
+ * A completed purchase. Like listings, the item is held serialized and only
+ * materialized into a softly cached ItemStack on first access.
+ */
 @Getter
 public class MarketplaceTransaction {
   private final long transactionId;
   private final long listingId;
   private final UUID sellerUuid;
   private final UUID buyerUuid;
-  private final ItemStack itemStack;
+  private final byte[] itemData;
   private final BigDecimal price;
   private final Timestamp transactionDateUtc;
 
+  @Getter(AccessLevel.NONE)
+  private volatile SoftReference<ItemStack> itemStackCache;
+
   public MarketplaceTransaction(
     long transactionId,
     long listingId,
     UUID sellerUuid,
     UUID buyerUuid,
-    ItemStack itemStack,
+    byte[] itemData,
     BigDecimal price,
     Timestamp transactionDateUtc
   ) {
@@ -34,27 +45,50 @@ public class MarketplaceTransaction {
     this.listingId = listingId;
     this.sellerUuid = sellerUuid;
     this.buyerUuid = buyerUuid;
-    this.itemStack = itemStack;
+    this.itemData = itemData;
     this.price = price;
     this.transactionDateUtc = transactionDateUtc;
   }
 
-  public static MarketplaceTransaction deserialize(ResultSet rs) throws SQLException {
-    try {
-      byte[] itemData = rs.getBytes("item_data");
-      ItemStack itemStack = null;
+  public MarketplaceTransaction(
+    long transactionId,
+    long listingId,
+    UUID sellerUuid,
+    UUID buyerUuid,
+    byte[] itemData,
+    ItemStack itemStack,
+    BigDecimal price,
+    Timestamp transactionDateUtc
+  ) {
+    this(transactionId, listingId, sellerUuid, buyerUuid, itemData, price, transactionDateUtc);
+    this.itemStackCache = new SoftReference<>(itemStack);
+  }
+
+  /**
+   * Get the purchased item, deserializing it on first access
+   */
+  public ItemStack getItemStack() {
+    SoftReference<ItemStack> cache = itemStackCache;
+    ItemStack itemStack = cache != null ? cache.get() : null;
+    if (itemStack == null) {
       try {
-        itemStack = ItemStackSerializer.deserializeItemStack(itemData);
+        itemStack = ItemCodec.deserialize(itemData);
       } catch (IOException e) {
-        throw new SQLException("Failed to deserialize ItemStack", e);
+        throw new IllegalStateException("Failed to deserialize ItemStack for transaction " + transactionId, e);
       }
+      itemStackCache = new SoftReference<>(itemStack);
+    }
+    return itemStack;
+  }
 
+  public static MarketplaceTransaction deserialize(ResultSet rs) throws SQLException {
+    try {
       return new MarketplaceTransaction(
         rs.getLong("transaction_id"),
         rs.getLong("listing_id"),
-        UUID.fromString(rs.getString("seller_uuid")),
-        UUID.fromString(rs.getString("buyer_uuid")),
-        itemStack,
+        UuidBytes.read(rs, "seller_uuid_bin", "seller_uuid"),
+        UuidBytes.read(rs, "buyer_uuid_bin", "buyer_uuid"),
+        ItemBlobs.read(rs),
         rs.getBigDecimal("price"),
         rs.getTimestamp("transaction_date_utc")
       );
@@ -62,4 +96,4 @@ public class MarketplaceTransaction {
       throw new SQLException("Error deserializing MarketplaceTransaction", e);
     }
   }
-} 
\ No newline at end of file
+}
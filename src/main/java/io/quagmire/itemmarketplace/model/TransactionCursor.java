@@ -0,0 +1,13 @@
+package io.quagmire.itemmarketplace.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Position of a transaction in a keyset paginated history. A page starts right
+ * after the cursor of the previous page's last transaction.
+ */
+public record TransactionCursor(long transactionId, Timestamp transactionDateUtc) {
+  public static TransactionCursor of(MarketplaceTransaction transaction) {
+    return new TransactionCursor(transaction.getTransactionId(), transaction.getTransactionDateUtc());
+  }
+}
@@ -0,0 +1,7 @@
+-- Item metadata extracted at create time so listings can be loaded, sorted and
+-- indexed without deserializing item_data. Older rows keep NULL and are
+-- materialized once on load.
+ALTER TABLE marketplace_listings
+  ADD COLUMN material VARCHAR(64) NULL AFTER item_data,
+  ADD COLUMN amount INT NULL AFTER material,
+  ADD COLUMN search_keywords VARCHAR(1024) NULL AFTER amount;
@@ -0,0 +1,4 @@
+-- Keyset pagination indexes for browsing active listings straight from the
+-- database, one per sort column with listing_id as the tie breaker
+CREATE INDEX idx_active_price ON marketplace_listings (is_active, price, listing_id);
+CREATE INDEX idx_active_created ON marketplace_listings (is_active, create_date_utc, listing_id);
@@ -0,0 +1,3 @@
+-- Keyset pagination indexes for a player's history, newest first
+CREATE INDEX idx_seller_history ON marketplace_transactions (seller_uuid, transaction_date_utc, transaction_id);
+CREATE INDEX idx_buyer_history ON marketplace_transactions (buyer_uuid, transaction_date_utc, transaction_id);
@@ -0,0 +1,19 @@
+-- Compact 16 byte player ids. The CHAR(36) columns keep being written until the
+-- backfill of older rows has finished, after which reads switch to these.
+ALTER TABLE marketplace_listings
+  ADD COLUMN seller_uuid_bin BINARY(16) NULL AFTER seller_uuid,
+  ADD INDEX idx_seller_bin (seller_uuid_bin);
+
+ALTER TABLE marketplace_transactions
+  ADD COLUMN seller_uuid_bin BINARY(16) NULL AFTER seller_uuid,
+  ADD COLUMN buyer_uuid_bin BINARY(16) NULL AFTER buyer_uuid,
+  ADD INDEX idx_seller_bin_history (seller_uuid_bin, transaction_date_utc, transaction_id),
+  ADD INDEX idx_buyer_bin_history (buyer_uuid_bin, transaction_date_utc, transaction_id);
+
+-- Progress of resumable background jobs that rewrite existing rows in batches
+CREATE TABLE IF NOT EXISTS marketplace_background_jobs (
+  job_name VARCHAR(64) PRIMARY KEY,
+  last_id BIGINT NOT NULL DEFAULT 0,
+  completed BOOLEAN NOT NULL DEFAULT FALSE,
+  last_update_date_utc TIMESTAMP NOT NULL DEFAULT UTC_TIMESTAMP
+);
@@ -0,0 +1,15 @@
+-- Serialized items stored once per distinct payload, keyed by its SHA-256.
+-- Listings and transactions reference a blob by hash; item_data is only kept
+-- on rows the background migration has not reached yet.
+CREATE TABLE IF NOT EXISTS marketplace_item_blobs (
+  item_hash BINARY(32) PRIMARY KEY,
+  item_data MEDIUMBLOB NOT NULL
+);
+
+ALTER TABLE marketplace_listings
+  ADD COLUMN item_hash BINARY(32) NULL AFTER item_data,
+  MODIFY COLUMN item_data BLOB NULL;
+
+ALTER TABLE marketplace_transactions
+  ADD COLUMN item_hash BINARY(32) NULL AFTER item_data,
+  MODIFY COLUMN item_data BLOB NULL;
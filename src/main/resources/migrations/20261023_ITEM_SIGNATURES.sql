@@ -0,0 +1,11 @@
+-- Normalized item signature used to group price statistics, stored at write
+-- time so statistics never need the serialized item. Transactions also keep
+-- the material and amount so they can be seeded without item_data.
+ALTER TABLE marketplace_listings
+  ADD COLUMN item_signature VARCHAR(255) NULL AFTER search_keywords;
+
+ALTER TABLE marketplace_transactions
+  ADD COLUMN material VARCHAR(64) NULL AFTER item_hash,
+  ADD COLUMN amount INT NULL AFTER material,
+  ADD COLUMN item_signature VARCHAR(255) NULL AFTER amount,
+  ADD INDEX idx_transaction_date (transaction_date_utc);
@@ -0,0 +1,21 @@
+-- Per day sales totals kept up to date from marketplace_transactions by the
+-- rollup aggregator, so reports never scan the raw table. Days are UTC.
+-- Transactions recorded before their amount was stored count 0 items.
+CREATE TABLE IF NOT EXISTS marketplace_daily_material_stats (
+  stat_date DATE NOT NULL,
+  material VARCHAR(64) NOT NULL,
+  sales INT NOT NULL DEFAULT 0,
+  items BIGINT NOT NULL DEFAULT 0,
+  revenue DECIMAL(24,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (stat_date, material)
+);
+
+CREATE TABLE IF NOT EXISTS marketplace_daily_seller_stats (
+  stat_date DATE NOT NULL,
+  seller_uuid_bin BINARY(16) NOT NULL,
+  sales INT NOT NULL DEFAULT 0,
+  items BIGINT NOT NULL DEFAULT 0,
+  revenue DECIMAL(24,2) NOT NULL DEFAULT 0,
+  PRIMARY KEY (stat_date, seller_uuid_bin),
+  INDEX idx_seller_stats (seller_uuid_bin, stat_date)
+);
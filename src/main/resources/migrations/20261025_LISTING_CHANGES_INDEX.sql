@@ -0,0 +1,3 @@
+-- Lets servers poll the listings that changed since a high-water mark of
+-- (last_update_date_utc, listing_id) with a range scan
+CREATE INDEX idx_listing_changes ON marketplace_listings (last_update_date_utc, listing_id);
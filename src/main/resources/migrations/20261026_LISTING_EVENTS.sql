@@ -0,0 +1,13 @@
+-- Short-lived listing change events that servers exchange to invalidate
+-- their in-memory listings. Readers are not tracked: rows older than the
+-- bus.retention-seconds period are pruned by create_date_utc, and a server
+-- that falls further behind relies on the change sync instead.
+CREATE TABLE IF NOT EXISTS marketplace_listing_events (
+  event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  origin_id BINARY(16) NOT NULL,
+  listing_id BIGINT NOT NULL,
+  change_type TINYINT NOT NULL,
+  version BIGINT NOT NULL,
+  create_date_utc TIMESTAMP NOT NULL DEFAULT UTC_TIMESTAMP,
+  INDEX idx_event_date (create_date_utc)
+);
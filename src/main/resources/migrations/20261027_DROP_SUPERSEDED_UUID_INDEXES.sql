@@ -0,0 +1,6 @@
+-- The single column player indexes are prefixes of the history indexes added
+-- for keyset pagination, so they only cost space and write time. The CHAR(36)
+-- history and seller indexes are dropped by the UUID backfill once reads have
+-- moved to the binary columns.
+DROP INDEX idx_seller_transactions ON marketplace_transactions;
+DROP INDEX idx_buyer_transactions ON marketplace_transactions;